@@ -16,9 +16,13 @@ import argo.jdom.JsonNodeFactories;
 import argo.jdom.JsonRootNode;
 import core.ipc.IPCServiceManager;
 import core.keyChain.KeyChain;
+import core.keyChain.managers.KeyStrokeDispatchQueue;
 import core.languageHandler.compiler.DynamicCompilerManager;
+import core.recorder.filter.EventFilterPipeline;
+import core.recorder.filter.MouseMoveDecimationFilter;
 import core.userDefinedTask.TaskGroup;
 import frontEnd.MainBackEndHolder;
+import globalListener.AutoRepeatFilter;
 import utilities.FileUtility;
 import utilities.ILoggable;
 import utilities.JSONUtility;
@@ -51,6 +55,32 @@ public class Config implements ILoggable {
 	 * task on key pressed event.
 	 */
 	private boolean executeOnKeyReleased;
+	/**
+	 * If enabled, when executing on key released, a key chain still executes on key pressed
+	 * if no longer key chain starts with the keys pressed so far.
+	 */
+	private boolean executeUnambiguousOnKeyPressed;
+	/**
+	 * What to do with key events arriving while too many key events are waiting to be matched.
+	 * One of the OVERFLOW_* constants in {@link KeyStrokeDispatchQueue}.
+	 */
+	private int keyEventOverflowPolicy;
+	/**
+	 * Key events matched later than this many milliseconds after they happened are counted as late.
+	 */
+	private long keyEventLateThresholdMs;
+	/**
+	 * How repeated key presses are delivered while a key is held down.
+	 * One of the MODE_* constants in {@link AutoRepeatFilter}.
+	 */
+	private int autoRepeatMode;
+	/**
+	 * Filters applied to events while recording. All of them are off by default, so recordings keep every event.
+	 */
+	private boolean recordingRemoveRedundantEvents;
+	private int recordingMouseMoveTolerance; // In pixels. 0 keeps all mouse moves.
+	private long recordingMouseMoveMaxIntervalMs;
+	private long recordingTimeQuantumMs; // 0 keeps the exact event times.
 	private Level nativeHookDebugLevel;
 
 	static {
@@ -77,6 +107,10 @@ public class Config implements ILoggable {
 		useTrayIcon = DEFAULT_TRAY_ICON_USE;
 		this.enabledHaltingKeyPressed = true;
 		this.executeOnKeyReleased = true;
+		this.keyEventOverflowPolicy = KeyStrokeDispatchQueue.OVERFLOW_DROP;
+		this.keyEventLateThresholdMs = KeyStrokeDispatchQueue.DEFAULT_LATE_THRESHOLD_MS;
+		this.autoRepeatMode = AutoRepeatFilter.MODE_SUPPRESS;
+		this.recordingMouseMoveMaxIntervalMs = MouseMoveDecimationFilter.DEFAULT_MAX_INTERVAL_MS;
 		this.nativeHookDebugLevel = DEFAULT_NATIVE_HOOK_DEBUG_LEVEL;
 
 		this.mouseGestureActivationKey = KeyEvent.VK_CAPS_LOCK;
@@ -174,6 +208,16 @@ public class Config implements ILoggable {
 						JsonNodeFactories.field("tray_icon_enabled", JsonNodeFactories.booleanNode(useTrayIcon)),
 						JsonNodeFactories.field("enabled_halt_by_key", JsonNodeFactories.booleanNode(enabledHaltingKeyPressed)),
 						JsonNodeFactories.field("execute_on_key_released", JsonNodeFactories.booleanNode(executeOnKeyReleased)),
+						JsonNodeFactories.field("execute_unambiguous_on_key_pressed", JsonNodeFactories.booleanNode(executeUnambiguousOnKeyPressed)),
+						JsonNodeFactories.field("key_event_overflow_policy", JsonNodeFactories.number(keyEventOverflowPolicy)),
+						JsonNodeFactories.field("key_event_late_threshold_ms", JsonNodeFactories.number(keyEventLateThresholdMs)),
+						JsonNodeFactories.field("auto_repeat_mode", JsonNodeFactories.number(autoRepeatMode)),
+						JsonNodeFactories.field("recording_filters", JsonNodeFactories.object(
+								JsonNodeFactories.field("remove_redundant_events", JsonNodeFactories.booleanNode(recordingRemoveRedundantEvents)),
+								JsonNodeFactories.field("mouse_move_tolerance", JsonNodeFactories.number(recordingMouseMoveTolerance)),
+								JsonNodeFactories.field("mouse_move_max_interval_ms", JsonNodeFactories.number(recordingMouseMoveMaxIntervalMs)),
+								JsonNodeFactories.field("time_quantum_ms", JsonNodeFactories.number(recordingTimeQuantumMs))
+								)),
 						JsonNodeFactories.field("global_hotkey", JsonNodeFactories.object(
 								JsonNodeFactories.field("mouse_gesture_activation", JsonNodeFactories.number(mouseGestureActivationKey)),
 								JsonNodeFactories.field("record", RECORD.jsonize()),
@@ -282,6 +326,102 @@ public class Config implements ILoggable {
 		this.executeOnKeyReleased = executeOnKeyReleased;
 	}
 
+	public int getKeyEventOverflowPolicy() {
+		return keyEventOverflowPolicy;
+	}
+
+	public void setKeyEventOverflowPolicy(int keyEventOverflowPolicy) {
+		if (keyEventOverflowPolicy != KeyStrokeDispatchQueue.OVERFLOW_DROP && keyEventOverflowPolicy != KeyStrokeDispatchQueue.OVERFLOW_WAIT) {
+			getLogger().warning("Unknown key event overflow policy " + keyEventOverflowPolicy + ".");
+			return;
+		}
+		this.keyEventOverflowPolicy = keyEventOverflowPolicy;
+	}
+
+	public long getKeyEventLateThresholdMs() {
+		return keyEventLateThresholdMs;
+	}
+
+	public void setKeyEventLateThresholdMs(long keyEventLateThresholdMs) {
+		if (keyEventLateThresholdMs < 0) {
+			getLogger().warning("Invalid key event late threshold " + keyEventLateThresholdMs + "ms.");
+			return;
+		}
+		this.keyEventLateThresholdMs = keyEventLateThresholdMs;
+	}
+
+	public int getAutoRepeatMode() {
+		return autoRepeatMode;
+	}
+
+	public void setAutoRepeatMode(int autoRepeatMode) {
+		if (autoRepeatMode != AutoRepeatFilter.MODE_SUPPRESS && autoRepeatMode != AutoRepeatFilter.MODE_PASS_THROUGH) {
+			getLogger().warning("Unknown auto repeat mode " + autoRepeatMode + ".");
+			return;
+		}
+		this.autoRepeatMode = autoRepeatMode;
+	}
+
+	public boolean isRecordingRemoveRedundantEvents() {
+		return recordingRemoveRedundantEvents;
+	}
+
+	public void setRecordingRemoveRedundantEvents(boolean recordingRemoveRedundantEvents) {
+		this.recordingRemoveRedundantEvents = recordingRemoveRedundantEvents;
+	}
+
+	public int getRecordingMouseMoveTolerance() {
+		return recordingMouseMoveTolerance;
+	}
+
+	public void setRecordingMouseMoveTolerance(int recordingMouseMoveTolerance) {
+		if (recordingMouseMoveTolerance < 0) {
+			getLogger().warning("Invalid mouse move tolerance " + recordingMouseMoveTolerance + ".");
+			return;
+		}
+		this.recordingMouseMoveTolerance = recordingMouseMoveTolerance;
+	}
+
+	public long getRecordingMouseMoveMaxIntervalMs() {
+		return recordingMouseMoveMaxIntervalMs;
+	}
+
+	public void setRecordingMouseMoveMaxIntervalMs(long recordingMouseMoveMaxIntervalMs) {
+		if (recordingMouseMoveMaxIntervalMs <= 0) {
+			getLogger().warning("Invalid mouse move maximum interval " + recordingMouseMoveMaxIntervalMs + "ms.");
+			return;
+		}
+		this.recordingMouseMoveMaxIntervalMs = recordingMouseMoveMaxIntervalMs;
+	}
+
+	public long getRecordingTimeQuantumMs() {
+		return recordingTimeQuantumMs;
+	}
+
+	public void setRecordingTimeQuantumMs(long recordingTimeQuantumMs) {
+		if (recordingTimeQuantumMs < 0) {
+			getLogger().warning("Invalid recording time quantum " + recordingTimeQuantumMs + "ms.");
+			return;
+		}
+		this.recordingTimeQuantumMs = recordingTimeQuantumMs;
+	}
+
+	/**
+	 * @return a new filter pipeline with the recording filters enabled in this config.
+	 */
+	public EventFilterPipeline newRecordingFilterPipeline() {
+		return EventFilterPipeline.of(recordingRemoveRedundantEvents, recordingMouseMoveTolerance,
+				recordingMouseMoveMaxIntervalMs, recordingTimeQuantumMs);
+	}
+
+	public boolean isExecuteUnambiguousOnKeyPressed() {
+		return executeUnambiguousOnKeyPressed;
+	}
+
+	public void setExecuteUnambiguousOnKeyPressed(boolean executeUnambiguousOnKeyPressed) {
+		this.executeUnambiguousOnKeyPressed = executeUnambiguousOnKeyPressed;
+	}
+
 	public Level getNativeHookDebugLevel() {
 		return nativeHookDebugLevel;
 	}
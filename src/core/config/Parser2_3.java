@@ -36,6 +36,33 @@ public class Parser2_3 extends ConfigParser {
 			config.setUseTrayIcon(globalSettings.getBooleanValue("tray_icon_enabled"));
 			config.setEnabledHaltingKeyPressed(globalSettings.getBooleanValue("enabled_halt_by_key"));
 			config.setExecuteOnKeyReleased(globalSettings.getBooleanValue("execute_on_key_released"));
+			if (globalSettings.isBooleanValue("execute_unambiguous_on_key_pressed")) {
+				config.setExecuteUnambiguousOnKeyPressed(globalSettings.getBooleanValue("execute_unambiguous_on_key_pressed"));
+			}
+			if (globalSettings.isNumberValue("key_event_overflow_policy")) {
+				config.setKeyEventOverflowPolicy(Integer.parseInt(globalSettings.getNumberValue("key_event_overflow_policy")));
+			}
+			if (globalSettings.isNumberValue("key_event_late_threshold_ms")) {
+				config.setKeyEventLateThresholdMs(Long.parseLong(globalSettings.getNumberValue("key_event_late_threshold_ms")));
+			}
+			if (globalSettings.isNumberValue("auto_repeat_mode")) {
+				config.setAutoRepeatMode(Integer.parseInt(globalSettings.getNumberValue("auto_repeat_mode")));
+			}
+			if (globalSettings.isObjectNode("recording_filters")) {
+				JsonNode recordingFilters = globalSettings.getNode("recording_filters");
+				if (recordingFilters.isBooleanValue("remove_redundant_events")) {
+					config.setRecordingRemoveRedundantEvents(recordingFilters.getBooleanValue("remove_redundant_events"));
+				}
+				if (recordingFilters.isNumberValue("mouse_move_tolerance")) {
+					config.setRecordingMouseMoveTolerance(Integer.parseInt(recordingFilters.getNumberValue("mouse_move_tolerance")));
+				}
+				if (recordingFilters.isNumberValue("mouse_move_max_interval_ms")) {
+					config.setRecordingMouseMoveMaxIntervalMs(Long.parseLong(recordingFilters.getNumberValue("mouse_move_max_interval_ms")));
+				}
+				if (recordingFilters.isNumberValue("time_quantum_ms")) {
+					config.setRecordingTimeQuantumMs(Long.parseLong(recordingFilters.getNumberValue("time_quantum_ms")));
+				}
+			}
 			config.setNativeHookDebugLevel(Level.parse(globalSettings.getNode("debug").getStringValue("level")));
 
 			JsonNode globalHotkey = globalSettings.getNode("global_hotkey");
@@ -4,6 +4,7 @@ import java.util.List;
 
 import argo.jdom.JsonNode;
 import core.ipc.repeatServer.MainMessageSender;
+import core.userDefinedTask.ActivationLatencies;
 
 /**
  * This class represents the message processor for any system action.
@@ -17,6 +18,7 @@ import core.ipc.repeatServer.MainMessageSender;
  *
  * The possible actions for system_host are:
  * 1) Keep alive : keep this connection alive. If this is not received frequently, the system will terminate connection to client
+ * 2) get_activation_latency : get the latency from key events to the tasks they trigger. See {@link ActivationLatencies#jsonize()}
  *
  * The possible actions for system client are:
  * 1) identify(name) : identify the client system as the remote compiler for a certain language.
@@ -47,6 +49,8 @@ public class SystemRequestProcessor extends AbstractMessageProcessor {
 		if (IpcMessageType.identify(type) == IpcMessageType.SYSTEM_HOST) {
 			if (action.equals("keep_alive")) {
 				return success(type, id);
+			} else if (action.equals("get_activation_latency")) {
+				return success(type, id, ActivationLatencies.getInstance().jsonize());
 			}
 		} else if (IpcMessageType.identify(type) == IpcMessageType.SYSTEM_CLIENT) {
 			if (action.equals("identify")) {
@@ -7,6 +7,7 @@ import java.util.logging.Logger;
 import argo.jdom.JsonNode;
 import argo.jdom.JsonNodeFactories;
 import argo.jdom.JsonRootNode;
+import utilities.DateUtility;
 import utilities.IJsonable;
 
 /**
@@ -40,7 +41,7 @@ public class KeyStroke implements IJsonable {
 			return value;
 		}
 
-		private boolean equivalent(Modifier other) {
+		boolean equivalent(Modifier other) {
 			return (this == KEY_MODIFIER_UNKNOWN) || (other == KEY_MODIFIER_UNKNOWN) || (this == other);
 		}
 	}
@@ -49,21 +50,24 @@ public class KeyStroke implements IJsonable {
 	private Modifier modifier;
 
 	private boolean pressed; // Press or release.
-	private LocalDateTime invokedTime;
+	private long invokedNanoTime; // On the System.nanoTime() scale.
 
 	public static KeyStroke of(int key, Modifier modifier) {
-		return new KeyStroke(key, modifier, false, LocalDateTime.now());
+		return new KeyStroke(key, modifier, false, System.nanoTime());
 	}
 
-	public static KeyStroke of(int key, Modifier modifier, boolean press, LocalDateTime invokedTime) {
-		return new KeyStroke(key, modifier, press, invokedTime);
+	/**
+	 * @param invokedNanoTime when the key stroke happened, on the {@link System#nanoTime()} scale.
+	 */
+	public static KeyStroke of(int key, Modifier modifier, boolean press, long invokedNanoTime) {
+		return new KeyStroke(key, modifier, press, invokedNanoTime);
 	}
 
-	private KeyStroke(int key, Modifier modifier, boolean press, LocalDateTime invokedTime) {
+	private KeyStroke(int key, Modifier modifier, boolean press, long invokedNanoTime) {
 		this.key = key;
 		this.modifier = modifier;
 		this.pressed = press;
-		this.invokedTime = invokedTime;
+		this.invokedNanoTime = invokedNanoTime;
 	}
 
 	/**
@@ -101,13 +105,26 @@ public class KeyStroke implements IJsonable {
 		return getModifier();
 	}
 
-	public KeyStroke at(LocalDateTime invokedTime) {
-		this.invokedTime = invokedTime;
+	/**
+	 * @param invokedNanoTime when the key stroke happened, on the {@link System#nanoTime()} scale.
+	 */
+	public KeyStroke at(long invokedNanoTime) {
+		this.invokedNanoTime = invokedNanoTime;
 		return this;
 	}
 
+	/**
+	 * @return when the key stroke happened, on the {@link System#nanoTime()} scale.
+	 */
+	public long getInvokedNanoTime() {
+		return invokedNanoTime;
+	}
+
+	/**
+	 * @return when the key stroke happened as wall clock time. This is only meant for display.
+	 */
 	public LocalDateTime getInvokedTime() {
-		return invokedTime;
+		return DateUtility.nanoTimeToLocalDateTime(invokedNanoTime);
 	}
 
 	public KeyStroke press(boolean pressed) {
@@ -121,7 +138,7 @@ public class KeyStroke implements IJsonable {
 
 	@Override
 	public KeyStroke clone() {
-		return of(key, modifier, pressed, invokedTime);
+		return of(key, modifier, pressed, invokedNanoTime);
 	}
 
 	@Override
@@ -1,22 +1,44 @@
 package core.keyChain;
 
+import java.util.AbstractList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 
 import utilities.KeyCodeToChar;
 
 /**
  * A chronologically ordered key series that have an upper limit of number of
  * key strokes and will remove the last one.
+ *
+ * Key strokes are stored in a fixed capacity ring buffer of primitives (key code, flags and time).
+ * The typed text and keyboard lock state are updated as each key stroke is added, so checking the
+ * typed text does not replay the key strokes.
  */
 public class RollingKeySeries extends KeySeries {
 
 	private static final int DEFAULT_LIMIT = 100;
 
-	private int limit;
-	private LinkedList<KeyStroke> keys; // This is an alias for the underlying keys.
+	private static final int FLAG_MODIFIER_MASK = 0x3;
+	private static final int FLAG_PRESSED = 0x4;
+	private static final KeyStroke.Modifier[] MODIFIERS = new KeyStroke.Modifier[FLAG_MODIFIER_MASK + 1];
+	static {
+		for (KeyStroke.Modifier modifier : KeyStroke.Modifier.values()) {
+			MODIFIERS[modifier.getValue()] = modifier;
+		}
+	}
+
+	private final int limit;
+	private final int[] keyCodes;
+	private final byte[] flags;
+	private final long[] times;
+	private int start; // Index of the oldest key stroke.
+	private int size;
+
+	private final char[] typed; // Ring buffer of the last typed characters.
+	private int typedStart;
+	private int typedSize;
+	private KeyboardState keyboardState;
+	private String lastTyped;
 
 	public RollingKeySeries() {
 		this(Arrays.asList(), DEFAULT_LIMIT);
@@ -28,10 +50,13 @@ public class RollingKeySeries extends KeySeries {
 
 	public RollingKeySeries(List<KeyStroke> keys, int limit) {
 		super();
-		super.keys = new LinkedList<>();
-		this.keys = (LinkedList<KeyStroke>) super.keys;
-
 		this.limit = limit;
+		this.keyCodes = new int[limit];
+		this.flags = new byte[limit];
+		this.times = new long[limit];
+		this.typed = new char[limit];
+		super.keys = new KeyStrokeView();
+		clearKeys();
 
 		for (KeyStroke key : keys) {
 			addKeyStroke(key);
@@ -54,34 +79,105 @@ public class RollingKeySeries extends KeySeries {
 	 */
 	@Override
 	public void addKeyStroke(KeyStroke stroke) {
-		keys.add(stroke);
-		if (keys.size() > limit) {
-			keys.removeFirst();
+		if (limit == 0) {
+			return;
+		}
+
+		int index;
+		if (size < limit) {
+			index = (start + size) % limit;
+			size++;
+		} else {
+			index = start;
+			start = (start + 1) % limit;
 		}
+
+		keyCodes[index] = stroke.getKey();
+		flags[index] = (byte) (stroke.getModifier().getValue() | (stroke.isPressed() ? FLAG_PRESSED : 0));
+		times[index] = stroke.getInvokedNanoTime();
+
+		keyboardState = keyboardState.changeWith(stroke);
+		lastTyped = stroke.isPressed() ? KeyCodeToChar.getCharForCode(stroke.getKey(), keyboardState) : "";
+		for (int i = 0; i < lastTyped.length(); i++) {
+			addTypedChar(lastTyped.charAt(i));
+		}
+	}
+
+	@Override
+	public void clearKeys() {
+		start = 0;
+		size = 0;
+		typedStart = 0;
+		typedSize = 0;
+		keyboardState = KeyboardState.getDefault();
+		lastTyped = "";
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return key code of the last key stroke, or -1 if there is no key stroke.
+	 */
+	public int getLastKey() {
+		return size == 0 ? -1 : keyCodes[physicalIndex(size - 1)];
 	}
 
+	/**
+	 * @return the characters typed by the last key stroke. This is empty if the stroke did not type anything.
+	 */
+	public String getLastTyped() {
+		return lastTyped;
+	}
+
+	/**
+	 * @param index index of the key stroke, from 0 (oldest) to {@link #getSize()} - 1 (newest).
+	 * @return when the key stroke happened, on the {@link System#nanoTime()} scale.
+	 */
+	public long getTime(int index) {
+		return times[physicalIndex(index)];
+	}
 
 	/**
-	 * Get the string which would be typed out if all keys in this {@link KeySequence} are pressed in the specified order.
+	 * Get the last characters which would be typed out by the key strokes added to this series.
 	 * Note that this includes effects of keys like SHIFT, CAPSLOCK, or NUMSLOCK.
 	 * This means that this assumes both press and release activities are recorded with this instance.
 	 */
 	@Override
 	public String getTypedString() {
-		StringBuilder builder = new StringBuilder();
-		KeyboardState keyboardState = KeyboardState.getDefault();
-
-		for (KeyStroke keyStroke : getKeyStrokes()) {
-			keyboardState = keyboardState.changeWith(keyStroke);
-			if (keyStroke.isPressed()) {
-				String s = KeyCodeToChar.getCharForCode(keyStroke.getKey(), keyboardState);
-				builder.append(s);
-			}
+		StringBuilder builder = new StringBuilder(typedSize);
+		for (int i = 0; i < typedSize; i++) {
+			builder.append(typed[(typedStart + i) % limit]);
 		}
-
 		return builder.toString();
 	}
 
+	/**
+	 * @param suffix text to check.
+	 * @return whether the typed text ends with the given text.
+	 */
+	public boolean typedStringEndsWith(CharSequence suffix) {
+		int length = suffix.length();
+		if (length > typedSize) {
+			return false;
+		}
+
+		int offset = typedStart + typedSize - length;
+		for (int i = 0; i < length; i++) {
+			if (typed[(offset + i) % limit] != suffix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * This method is only valid for input of class {@link KeySequence}.
 	 * Checks whether the pressing key strokes in this object in the specified order
@@ -101,18 +197,18 @@ public class RollingKeySeries extends KeySeries {
 	}
 
 	private boolean collideWithKeySequence(KeySequence other) {
-		List<KeyStroke> otherKeyStrokes = other.getKeyStrokes();
-		if (otherKeyStrokes.size() > keys.size()) {
+		List<KeyStroke> otherKeyStrokes = other.keys;
+		int otherSize = otherKeyStrokes.size();
+		if (otherSize > size) {
 			return false;
 		}
 
-		ListIterator<KeyStroke> otherIterator = otherKeyStrokes.listIterator(otherKeyStrokes.size());
-		ListIterator<KeyStroke> iterator = keys.listIterator(keys.size());
-		for (int i = 0; i < otherKeyStrokes.size(); i++) {
-			KeyStroke otherKeyStroke = otherIterator.previous();
-			KeyStroke keyStroke = iterator.previous();
+		for (int i = 1; i <= otherSize; i++) {
+			KeyStroke otherKeyStroke = otherKeyStrokes.get(otherSize - i);
+			int index = physicalIndex(size - i);
 
-			if (!otherKeyStroke.equals(keyStroke)) {
+			if (otherKeyStroke.getKey() != keyCodes[index]
+					|| !otherKeyStroke.getModifier().equivalent(getModifier(index))) {
 				return false;
 			}
 		}
@@ -120,8 +216,46 @@ public class RollingKeySeries extends KeySeries {
 	}
 
 	private boolean collideWithActivationPhrase(ActivationPhrase other) {
-		int lastCode = keys.listIterator(keys.size()).previous().getKey();
-		boolean isTypedChar = KeyCodeToChar.hasCharForCode(lastCode, KeyboardState.getDefault());
-		return getTypedString().endsWith(other.getValue()) && isTypedChar;
+		boolean isTypedChar = KeyCodeToChar.hasCharForCode(getLastKey(), KeyboardState.getDefault());
+		return isTypedChar && typedStringEndsWith(other.getValue());
+	}
+
+	private void addTypedChar(char c) {
+		if (typedSize < limit) {
+			typed[(typedStart + typedSize) % limit] = c;
+			typedSize++;
+		} else {
+			typed[typedStart] = c;
+			typedStart = (typedStart + 1) % limit;
+		}
+	}
+
+	private int physicalIndex(int index) {
+		return (start + index) % limit;
+	}
+
+	private KeyStroke.Modifier getModifier(int physicalIndex) {
+		return MODIFIERS[flags[physicalIndex] & FLAG_MODIFIER_MASK];
+	}
+
+	/**
+	 * Read only view of the key strokes in the ring buffer, from the oldest to the newest.
+	 * Key strokes are created on access.
+	 */
+	private class KeyStrokeView extends AbstractList<KeyStroke> {
+		@Override
+		public KeyStroke get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index " + index + " out of range for size " + size);
+			}
+
+			int i = physicalIndex(index);
+			return KeyStroke.of(keyCodes[i], getModifier(i), (flags[i] & FLAG_PRESSED) != 0, times[i]);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
 	}
 }
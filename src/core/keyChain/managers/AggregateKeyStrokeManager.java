@@ -1,7 +1,10 @@
 package core.keyChain.managers;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -12,51 +15,251 @@ import core.keyChain.KeyStroke;
 import core.keyChain.TaskActivation;
 import core.userDefinedTask.UserDefinedAction;
 
+/**
+ * Delegates key strokes to a list of managers.
+ *
+ * Each key stroke is only sent to the managers interested in it (see {@link KeyStrokeManager#getInterestedEvents()}
+ * and {@link KeyStrokeManager#getInterestedKeys()}). The managers to send to are precomputed per key code whenever the
+ * interests may have changed, so dispatching a key stroke does not allocate unless some action is triggered.
+ *
+ * The matchers of all managers and the dispatch tables are published together as one immutable, versioned
+ * {@link ActivationSnapshot}. Registering or unregistering any number of actions at once (e.g. enabling a task group)
+ * therefore becomes visible to the matcher thread in a single atomic swap.
+ */
 public class AggregateKeyStrokeManager extends KeyStrokeManager {
 
-	private List<KeyStrokeManager> managers;
+	private static final int[] NO_MANAGER = new int[0];
+
+	private final KeyStrokeManager[] managers;
+	private long version; // Version of the last built snapshot, guarded by this.
+	private ActivationSnapshot adopted; // Snapshot last used on the matcher thread, only accessed from that thread.
 
 	public AggregateKeyStrokeManager(Config config, KeyStrokeManager... managers) {
 		super(config);
-		this.managers = Arrays.asList(managers);
+		this.managers = managers.clone();
+		rebuildMatching();
 	}
 
 	@Override
 	public void startListening() {
-		managers.forEach(KeyStrokeManager::startListening);
+		for (KeyStrokeManager manager : managers) {
+			manager.startListening();
+		}
 	}
 
 	@Override
-	public Set<UserDefinedAction> onKeyStrokePressed(KeyStroke stroke) {
-		return managers.stream().map(m -> m.onKeyStrokePressed(stroke)).flatMap(Collection::stream).collect(Collectors.toSet());
+	protected Set<UserDefinedAction> onKeyStrokePressed(KeyStroke stroke, Object matcher) {
+		ActivationSnapshot snapshot = adopt((ActivationSnapshot) matcher);
+		Set<UserDefinedAction> output = Collections.<UserDefinedAction>emptySet();
+		for (int index : snapshot.pressedDispatch.get(stroke.getKey())) {
+			output = merge(output, managers[index].onKeyStrokePressed(stroke, snapshot.matchers[index]));
+		}
+		return output;
 	}
 
 	@Override
-	public Set<UserDefinedAction> onKeyStrokeReleased(KeyStroke stroke) {
-		return managers.stream().map(m -> m.onKeyStrokeReleased(stroke)).flatMap(Collection::stream).collect(Collectors.toSet());
+	protected Set<UserDefinedAction> onKeyStrokeReleased(KeyStroke stroke, Object matcher) {
+		ActivationSnapshot snapshot = adopt((ActivationSnapshot) matcher);
+		Set<UserDefinedAction> output = Collections.<UserDefinedAction>emptySet();
+		for (int index : snapshot.releasedDispatch.get(stroke.getKey())) {
+			output = merge(output, managers[index].onKeyStrokeReleased(stroke, snapshot.matchers[index]));
+		}
+		return output;
 	}
 
 	@Override
 	public void clear() {
-		managers.forEach(KeyStrokeManager::clear);
+		for (KeyStrokeManager manager : managers) {
+			manager.clear();
+		}
+	}
+
+	@Override
+	public synchronized Set<UserDefinedAction> collision(Collection<TaskActivation> activations) {
+		return flatten(Arrays.stream(managers).map(m -> m.collision(activations)));
+	}
+
+	/**
+	 * Register an action in every manager, each manager kicking out the actions colliding with it.
+	 * The new snapshot is published once all managers are updated.
+	 */
+	@Override
+	public synchronized Set<UserDefinedAction> registerAction(UserDefinedAction action) {
+		Set<UserDefinedAction> output = new HashSet<>();
+		for (KeyStrokeManager manager : managers) {
+			Set<UserDefinedAction> toRemove = manager.collision(action.getActivation());
+			toRemove.forEach(a -> manager.removeAction(a));
+			manager.addAction(action);
+			output.addAll(toRemove);
+		}
+
+		rebuildMatching();
+		return output;
 	}
 
 	@Override
-	public Set<UserDefinedAction> collision(Collection<TaskActivation> activations) {
-		return flatten(managers.stream().map(m -> m.collision(activations)));
+	protected void addAction(UserDefinedAction action) {
+		for (KeyStrokeManager manager : managers) {
+			manager.addAction(action);
+		}
 	}
 
 	@Override
-	public Set<UserDefinedAction> registerAction(UserDefinedAction action) {
-		return flatten(managers.stream().map(m -> m.registerAction(action)));
+	protected Set<UserDefinedAction> removeAction(UserDefinedAction action) {
+		return flatten(Arrays.stream(managers).map(m -> m.removeAction(action)));
 	}
 
 	@Override
-	public Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
-		return flatten(managers.stream().map(m -> m.unRegisterAction(action)));
+	protected Object buildMatcher() {
+		version++;
+		return new ActivationSnapshot(version, managers);
+	}
+
+	/**
+	 * Recompute which managers receive which key strokes. This is done automatically on registration,
+	 * but must be called when a configuration affecting the interests of the managers changes.
+	 */
+	public void updateInterests() {
+		rebuildMatching();
+	}
+
+	/**
+	 * Start using a snapshot on the matcher thread. Managers that were not receiving any event with the
+	 * previous snapshot are cleared, since they missed key strokes.
+	 */
+	private ActivationSnapshot adopt(ActivationSnapshot snapshot) {
+		if (adopted != null && snapshot.version == adopted.version) {
+			return snapshot;
+		}
+
+		for (int i = 0; i < managers.length; i++) {
+			boolean wasInterested = adopted != null && adopted.interests[i] != 0;
+			if (!wasInterested && snapshot.interests[i] != 0) {
+				managers[i].clear();
+			}
+		}
+		adopted = snapshot;
+		return snapshot;
 	}
 
 	private Set<UserDefinedAction> flatten(Stream<Set<UserDefinedAction>> streamOfCollection) {
 		return streamOfCollection.flatMap(Collection::stream).collect(Collectors.toSet());
 	}
+
+	/**
+	 * Merge two sets of actions, avoiding a copy when either is empty.
+	 */
+	private static Set<UserDefinedAction> merge(Set<UserDefinedAction> current, Set<UserDefinedAction> more) {
+		if (more == null || more.isEmpty()) {
+			return current;
+		}
+		if (current.isEmpty()) {
+			return more;
+		}
+
+		Set<UserDefinedAction> output = new HashSet<>(current);
+		output.addAll(more);
+		return output;
+	}
+
+	/**
+	 * Immutable state used to dispatch key strokes to the managers.
+	 */
+	private static class ActivationSnapshot {
+		private final long version;
+		private final Object[] matchers; // Matcher of each manager.
+		private final int[] interests; // Interested events of each manager.
+		private final Dispatch pressedDispatch;
+		private final Dispatch releasedDispatch;
+
+		private ActivationSnapshot(long version, KeyStrokeManager[] managers) {
+			this.version = version;
+			this.matchers = new Object[managers.length];
+			this.interests = new int[managers.length];
+			List<int[]> keys = new ArrayList<>();
+			for (int i = 0; i < managers.length; i++) {
+				matchers[i] = managers[i].buildMatcher();
+				interests[i] = managers[i].getInterestedEvents();
+				keys.add(managers[i].getInterestedKeys());
+			}
+
+			this.pressedDispatch = new Dispatch(interests, keys, EVENT_KEY_PRESSED);
+			this.releasedDispatch = new Dispatch(interests, keys, EVENT_KEY_RELEASED);
+		}
+	}
+
+	/**
+	 * Indices of the managers interested in one type of event, per key code.
+	 */
+	private static class Dispatch {
+		private final int[][] byKey;
+		private final int[] defaultManagers; // Managers interested in all keys.
+
+		private Dispatch(int[] interests, List<int[]> keys, int event) {
+			List<Integer> interested = new ArrayList<>();
+			List<Integer> allKeys = new ArrayList<>();
+			int maxKey = -1;
+
+			for (int i = 0; i < interests.length; i++) {
+				if ((interests[i] & event) == 0) {
+					continue;
+				}
+
+				interested.add(i);
+				if (keys.get(i) == null) {
+					allKeys.add(i);
+					continue;
+				}
+				for (int key : keys.get(i)) {
+					maxKey = Math.max(maxKey, key);
+				}
+			}
+
+			defaultManagers = toArray(allKeys);
+			byKey = new int[maxKey + 1][];
+			for (int key = 0; key <= maxKey; key++) {
+				List<Integer> forKey = new ArrayList<>();
+				for (int i : interested) {
+					if (contains(keys.get(i), key)) {
+						forKey.add(i);
+					}
+				}
+				byKey[key] = forKey.size() == allKeys.size() ? defaultManagers : toArray(forKey);
+			}
+		}
+
+		private int[] get(int key) {
+			if (key >= 0 && key < byKey.length) {
+				return byKey[key];
+			}
+			return defaultManagers;
+		}
+
+		/**
+		 * @return whether the key is in the keys, where null keys mean all keys.
+		 */
+		private static boolean contains(int[] keys, int key) {
+			if (keys == null) {
+				return true;
+			}
+			for (int k : keys) {
+				if (k == key) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static int[] toArray(List<Integer> indices) {
+			if (indices.isEmpty()) {
+				return NO_MANAGER;
+			}
+
+			int[] output = new int[indices.size()];
+			for (int i = 0; i < output.length; i++) {
+				output[i] = indices.get(i);
+			}
+			return output;
+		}
+	}
 }
@@ -1,30 +1,25 @@
 package core.keyChain.managers;
 
-import java.time.LocalDateTime;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
 import java.util.Set;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 
 import org.jnativehook.NativeHookException;
-import org.jnativehook.keyboard.NativeKeyEvent;
 
 import core.config.Config;
-import core.controller.Core;
 import core.keyChain.KeyStroke;
 import core.keyChain.TaskActivation;
+import core.scheduler.EventOpcode;
+import core.scheduler.EventSink;
+import core.userDefinedTask.TaskExecutionEngine;
 import core.userDefinedTask.TaskGroup;
 import core.userDefinedTask.UserDefinedAction;
-import globalListener.GlobalKeyListener;
+import globalListener.NativeInputEvent;
+import globalListener.NativeInputEventBus;
 import utilities.Function;
-import utilities.NativeHookCodeConverter;
-import utilities.RandomUtil;
 import utilities.StringUtilities;
 
 public final class GlobalEventsManager {
@@ -38,8 +33,9 @@ public final class GlobalEventsManager {
 	 * If it evaluates to true, the task will not be executed.
 	 */
 	private Function<Void, Boolean> disablingFunction;
-	private final Map<String, Thread> executions;
-	private final KeyStrokeManager taskActivationManager;
+	private final TaskExecutionEngine executionEngine;
+	private final AggregateKeyStrokeManager taskActivationManager;
+	private final KeyStrokeDispatchQueue dispatchQueue;
 
 	@SuppressWarnings("unused")
 	private TaskGroup currentTaskGroup;
@@ -47,7 +43,7 @@ public final class GlobalEventsManager {
 	public GlobalEventsManager(Config config) {
 		this.config = config;
 
-		this.executions = new HashMap<>();
+		this.executionEngine = new TaskExecutionEngine();
 		this.disablingFunction = Function.falseFunction();
 
 		this.taskActivationManager = new AggregateKeyStrokeManager(config,
@@ -56,38 +52,57 @@ public final class GlobalEventsManager {
 				new PhraseManager(config),
 				new MouseGestureManager(config));
 
-	}
-
-	public void startGlobalListener() throws NativeHookException {
-		GlobalKeyListener keyListener = new GlobalKeyListener();
-		keyListener.setKeyPressed(new Function<NativeKeyEvent, Boolean>() {
+		this.dispatchQueue = new KeyStrokeDispatchQueue(new EventSink() {
 			@Override
-			public Boolean apply(NativeKeyEvent r) {
-				KeyStroke stroke = NativeHookCodeConverter.getKeyEventCode(r.getKeyCode()).press(true).at(LocalDateTime.now());
-				if (!shouldDelegate(stroke)) {
-					return true;
-				}
-
-				Set<UserDefinedAction> actions = taskActivationManager.onKeyStrokePressed(stroke);
-				return startExecutingActions(actions);
+			public void accept(long time, byte opcode, int arg0, int arg1) {
+				dispatch(time, opcode, arg0, arg1);
 			}
 		});
+	}
 
-		keyListener.setKeyReleased(new Function<NativeKeyEvent, Boolean>() {
+	public void startGlobalListener() throws NativeHookException {
+		dispatchQueue.setOverflowPolicy(config.getKeyEventOverflowPolicy());
+		dispatchQueue.setLateThresholdMs(config.getKeyEventLateThresholdMs());
+		dispatchQueue.start();
+		NativeInputEventBus.getInstance().setAutoRepeatMode(config.getAutoRepeatMode());
+
+		NativeInputEventBus.getInstance().subscribe(new Function<NativeInputEvent, Boolean>() {
 			@Override
-			public Boolean apply(NativeKeyEvent r) {
-				KeyStroke stroke = NativeHookCodeConverter.getKeyEventCode(r.getKeyCode()).press(false).at(LocalDateTime.now());;
-				if (!shouldDelegate(stroke)) {
-					return true;
+			public Boolean apply(NativeInputEvent e) {
+				boolean pressed = e.getType() == NativeInputEvent.KEY_PRESSED;
+				if (pressed) {
+					haltIfRequested(e.getKey());
 				}
-
-				Set<UserDefinedAction> actions = taskActivationManager.onKeyStrokeReleased(stroke);
-				return startExecutingActions(actions);
+				byte opcode = pressed ? EventOpcode.KEY_PRESS : EventOpcode.KEY_RELEASE;
+				return dispatchQueue.offer(e.getTime(), opcode, e.getKey(), e.getModifier().getValue());
 			}
-		});
+		}, NativeInputEvent.KEY_PRESSED | NativeInputEvent.KEY_RELEASED, NativeInputEventBus.PRIORITY_HIGH);
 
 		taskActivationManager.startListening();
-		keyListener.startListening();
+	}
+
+	/**
+	 * Match a key event taken from the dispatch queue. This is called on the matcher thread.
+	 */
+	private void dispatch(long hookTime, byte opcode, int key, int modifier) {
+		boolean pressed = opcode == EventOpcode.KEY_PRESS;
+		KeyStroke stroke = KeyStroke.of(key, KeyStroke.Modifier.forValue(modifier), pressed, hookTime);
+		if (!shouldDelegate(stroke)) {
+			return;
+		}
+
+		Set<UserDefinedAction> actions = pressed ? taskActivationManager.onKeyStrokePressed(stroke) : taskActivationManager.onKeyStrokeReleased(stroke);
+		startExecutingActions(actions, hookTime, System.nanoTime());
+	}
+
+	/**
+	 * Halt all tasks right away on the native hook thread if the halting key is pressed,
+	 * so that halting is not delayed by key events waiting in the dispatch queue.
+	 */
+	private void haltIfRequested(int key) {
+		if (key == Config.HALT_TASK && config.isEnabledHaltingKeyPressed()) {
+			haltAllTasks();
+		}
 	}
 
 	public void setDisablingFunction(Function<Void, Boolean> disablingFunction) {
@@ -98,6 +113,16 @@ public final class GlobalEventsManager {
 		this.currentTaskGroup = currentTaskGroup;
 	}
 
+	/**
+	 * Notify that a configuration affecting task activation (e.g. the mouse gesture activation key) has changed.
+	 */
+	public void onActivationConfigChanged() {
+		dispatchQueue.setOverflowPolicy(config.getKeyEventOverflowPolicy());
+		dispatchQueue.setLateThresholdMs(config.getKeyEventLateThresholdMs());
+		NativeInputEventBus.getInstance().setAutoRepeatMode(config.getAutoRepeatMode());
+		taskActivationManager.updateInterests();
+	}
+
 	/**
 	 * Given a new key code coming in, consider whether we should delegate
 	 * to the {@link KeyStrokeManager}, or take actions and terminate.
@@ -107,8 +132,7 @@ public final class GlobalEventsManager {
 	 */
 	private boolean shouldDelegate(KeyStroke stroke) {
 		if (stroke.getKey() == Config.HALT_TASK && config.isEnabledHaltingKeyPressed()) {
-			taskActivationManager.clear();
-			haltAllTasks();
+			taskActivationManager.clear(); // Tasks are already halted on the native hook thread.
 			return false;
 		}
 
@@ -119,47 +143,47 @@ public final class GlobalEventsManager {
 	 * Start executing actions, each in a separate thread.
 	 *
 	 * @param actions actions to execute
+	 * @param hookTime when the native key event triggering the actions happened
+	 * @param matchTime when the key event finished matching
 	 * @return if all operations succeeded
 	 */
-	private boolean startExecutingActions(Collection<UserDefinedAction> actions) {
+	private boolean startExecutingActions(Collection<UserDefinedAction> actions, long hookTime, long matchTime) {
 		boolean result = true;
 		for (UserDefinedAction action : actions) {
-			result &= startExecutingAction(action);
+			result &= startExecutingAction(action, hookTime, matchTime);
 		}
 		return result;
 	}
 
 	/**
-	 * Start executing an action in a separate thread
+	 * Start executing an action in a separate thread, following the execution policy of the action.
 	 *
 	 * @param action action to execute
-	 * @return if operation succeeded
+	 * @param hookTime when the native key event triggering the action happened
+	 * @param matchTime when the key event finished matching
+	 * @return if the action was executed or scheduled, or false if the trigger was dropped
 	 */
-	private boolean startExecutingAction(final UserDefinedAction action) {
+	private boolean startExecutingAction(final UserDefinedAction action, long hookTime, long matchTime) {
 		if (action == null) {
 			return true;
 		}
 
-		final String id = RandomUtil.randomID();
-		Thread execution = new Thread(new Runnable() {
-			@Override
-			public void run() {
-				try {
-					action.trackedAction(Core.getInstance());
-				} catch (InterruptedException e) {
-					LOGGER.info("Task ended prematurely");
-				} catch (Exception e) {
-					String name = action.getName() == null ? "" : action.getName();
-					LOGGER.log(Level.WARNING, "Exception while executing task " + name, e);
-				}
+		return executionEngine.execute(action, hookTime, matchTime);
+	}
 
-				executions.remove(id);
-			}
-		});
+	/**
+	 * @return the engine executing the triggered tasks, which tracks the number of running and queued executions.
+	 */
+	public TaskExecutionEngine getExecutionEngine() {
+		return executionEngine;
+	}
 
-		executions.put(id, execution);
-		execution.start();
-		return true;
+	/**
+	 * @return the queue handing key events from the native hook thread to the matcher thread,
+	 * which tracks the number of dropped and late key events.
+	 */
+	public KeyStrokeDispatchQueue getDispatchQueue() {
+		return dispatchQueue;
 	}
 
 	/**
@@ -171,6 +195,16 @@ public final class GlobalEventsManager {
 		return taskActivationManager.registerAction(action);
 	}
 
+	/**
+	 * Register many tasks at once. Unlike {@link #registerTask(UserDefinedAction)}, this does not kick out registered tasks.
+	 * Tasks colliding with a registered task or with an earlier task in the collection are not registered.
+	 * @param actions actions to register.
+	 * @return the actions not registered because of collisions.
+	 */
+	public Set<UserDefinedAction> registerAllTasks(Collection<UserDefinedAction> actions) {
+		return taskActivationManager.registerAll(actions);
+	}
+
 	/**
 	 * Unregister the action, then modify the action activation to be the new activation, and finally register the modified action.
 	 * This kicks out all other actions that collide with the action provided.
@@ -235,18 +269,9 @@ public final class GlobalEventsManager {
 	}
 
 	/**
-	 * Interrupt all currently executing tasks, and clear the record of all executing tasks
+	 * Interrupt all currently executing tasks, and clear all executions waiting to start.
 	 */
 	public void haltAllTasks() {
-		LinkedList<Thread> endingThreads = new LinkedList<>();
-		endingThreads.addAll(executions.values());
-
-		for (Thread thread : endingThreads) {
-			while (thread.isAlive() && thread != Thread.currentThread()) {
-				LOGGER.info("Interrupting execution thread " + thread);
-				thread.interrupt();
-			}
-		}
-		executions.clear();
+		executionEngine.haltAll();
 	}
 }
@@ -0,0 +1,163 @@
+package core.keyChain.managers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import core.keyChain.KeyChain;
+import core.keyChain.KeyStroke;
+
+/**
+ * Index of hotkeys for lookup by the key strokes currently pressed, without allocating or hashing strings.
+ *
+ * Each hotkey is keyed by an order dependent hash of its key codes, which can be extended one key at a time
+ * as keys are pressed (see {@link #extendHash(long, int)}). Hotkeys with the same hash are then compared key by key,
+ * with the same modifier rules as {@link KeyStroke#equals(Object)}.
+ *
+ * The index also keeps the hashes of all proper prefixes of the hotkeys, to tell whether the keys pressed so far
+ * may still become a longer hotkey (see {@link #mayBePrefix(long)}).
+ *
+ * Instances of this class are immutable. The index is rebuilt whenever registered hotkeys change.
+ *
+ * @param <T> type of the values associated with the hotkeys.
+ */
+class HotkeyIndex<T> {
+
+	static final long EMPTY_HASH = 0xcbf29ce484222325L;
+	private static final long HASH_PRIME = 0x100000001b3L;
+
+	private final long[] slotHashes;
+	private final int[] slotEntries; // Index of the first entry with the hash of the slot, or -1 if the slot is empty.
+
+	private final KeyStroke[][] entryKeys;
+	private final int[] entryNext; // Index of the next entry with the same hash, or -1.
+	private final List<T> entryValues;
+
+	private final long[] prefixHashes;
+	private final boolean[] prefixUsed;
+
+	HotkeyIndex(Map<KeyChain, T> hotkeys) {
+		int capacity = Integer.highestOneBit(Math.max(hotkeys.size(), 1) * 4);
+		slotHashes = new long[capacity];
+		slotEntries = new int[capacity];
+		Arrays.fill(slotEntries, -1);
+
+		entryKeys = new KeyStroke[hotkeys.size()][];
+		entryNext = new int[hotkeys.size()];
+		T[] values = newArray(hotkeys.size());
+
+		int prefixCount = 0;
+		for (KeyChain hotkey : hotkeys.keySet()) {
+			prefixCount += Math.max(hotkey.getSize() - 1, 0);
+		}
+		prefixHashes = new long[Integer.highestOneBit(Math.max(prefixCount, 1) * 4)];
+		prefixUsed = new boolean[prefixHashes.length];
+
+		int entry = 0;
+		for (Entry<KeyChain, T> hotkey : hotkeys.entrySet()) {
+			List<KeyStroke> strokes = hotkey.getKey().getKeyStrokes();
+			entryKeys[entry] = strokes.toArray(new KeyStroke[strokes.size()]);
+			values[entry] = hotkey.getValue();
+
+			long hash = EMPTY_HASH;
+			for (int i = 0; i < strokes.size(); i++) {
+				if (i > 0) {
+					addPrefix(hash);
+				}
+				hash = extendHash(hash, strokes.get(i).getKey());
+			}
+
+			int slot = findSlot(hash);
+			slotHashes[slot] = hash;
+			entryNext[entry] = slotEntries[slot];
+			slotEntries[slot] = entry;
+			entry++;
+		}
+		entryValues = Arrays.asList(values);
+	}
+
+	/**
+	 * Extend the hash of a series of keys by one more key.
+	 *
+	 * @param hash hash of the keys so far, or {@link #EMPTY_HASH} if there is no key.
+	 * @param key key code of the next key.
+	 * @return hash of the keys so far followed by the given key.
+	 */
+	static long extendHash(long hash, int key) {
+		return (hash ^ key) * HASH_PRIME;
+	}
+
+	/**
+	 * Find the value of the hotkey matching the given key strokes.
+	 *
+	 * @param hash hash of the key codes of the key strokes, computed with {@link #extendHash(long, int)}.
+	 * @param strokes key strokes in the order they were pressed.
+	 * @param count number of key strokes to consider from the start of the array.
+	 * @return the value of the hotkey, or null if no hotkey matches.
+	 */
+	T find(long hash, KeyStroke[] strokes, int count) {
+		int slot = findSlot(hash);
+		for (int entry = slotEntries[slot]; entry != -1; entry = entryNext[entry]) {
+			if (matches(entryKeys[entry], strokes, count)) {
+				return entryValues.get(entry);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Check whether some hotkey is longer than the given keys and starts with the same key codes.
+	 * This may return true for keys that are not such a prefix, but never returns false for one.
+	 *
+	 * @param hash hash of the key codes, computed with {@link #extendHash(long, int)}.
+	 * @return whether pressing more keys may still complete a longer hotkey.
+	 */
+	boolean mayBePrefix(long hash) {
+		return prefixUsed[findPrefixSlot(hash)];
+	}
+
+	private void addPrefix(long hash) {
+		int slot = findPrefixSlot(hash);
+		prefixHashes[slot] = hash;
+		prefixUsed[slot] = true;
+	}
+
+	private int findPrefixSlot(long hash) {
+		int mask = prefixHashes.length - 1;
+		int slot = (int) (hash ^ (hash >>> 32)) & mask;
+		while (prefixUsed[slot] && prefixHashes[slot] != hash) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private static boolean matches(KeyStroke[] hotkey, KeyStroke[] strokes, int count) {
+		if (hotkey.length != count) {
+			return false;
+		}
+		for (int i = 0; i < count; i++) {
+			if (!hotkey[i].equals(strokes[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the slot holding the given hash, or the empty slot where it would be inserted.
+	 */
+	private int findSlot(long hash) {
+		int mask = slotHashes.length - 1;
+		int slot = (int) (hash ^ (hash >>> 32)) & mask;
+		while (slotEntries[slot] != -1 && slotHashes[slot] != hash) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T[] newArray(int size) {
+		return (T[]) new Object[size];
+	}
+}
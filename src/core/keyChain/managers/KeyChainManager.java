@@ -2,10 +2,10 @@ package core.keyChain.managers;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -17,13 +17,24 @@ import core.userDefinedTask.UserDefinedAction;
 
 public class KeyChainManager extends KeyStrokeManager {
 
-	private KeyChain currentKeyChain;
+	private static final int INITIAL_PRESSED_CAPACITY = 16;
+
+	// Keys pressed so far and the hash of their key codes, kept as arrays so that pressing a key does not allocate.
+	private KeyStroke[] pressedKeys;
+	private int pressedCount;
+	private long pressedHash;
+	private boolean executedOnPress; // Whether an action was executed since the keys were last cleared.
+
 	private final Map<KeyChain, UserDefinedAction> keyChainActions;
+	private final SeriesIndex<UserDefinedAction> collisionIndex;
 
 	public KeyChainManager(Config config) {
 		super(config);
-		currentKeyChain = new KeyChain();
+		pressedKeys = new KeyStroke[INITIAL_PRESSED_CAPACITY];
+		pressedHash = HotkeyIndex.EMPTY_HASH;
 		keyChainActions = new HashMap<>();
+		collisionIndex = new SeriesIndex<>(SeriesIndex.MODE_PREFIX);
+		rebuildMatching();
 	}
 
 	@Override
@@ -32,44 +43,65 @@ public class KeyChainManager extends KeyStrokeManager {
 	}
 
 	@Override
-	public Set<UserDefinedAction> onKeyStrokePressed(KeyStroke stroke) {
-		currentKeyChain.addKeyStroke(stroke);
+	public int getInterestedEvents() {
+		return keyChainActions.isEmpty() ? 0 : EVENT_ALL;
+	}
+
+	@Override
+	protected Set<UserDefinedAction> onKeyStrokePressed(KeyStroke stroke, Object matcher) {
+		if (pressedCount == pressedKeys.length) {
+			pressedKeys = Arrays.copyOf(pressedKeys, pressedKeys.length * 2);
+		}
+		pressedKeys[pressedCount++] = stroke;
+		pressedHash = HotkeyIndex.extendHash(pressedHash, stroke.getKey());
 
 		UserDefinedAction action = null;
 		if (!getConfig().isExecuteOnKeyReleased()) {
-			action = considerTaskExecution(stroke.getKey());
+			action = considerTaskExecution(stroke.getKey(), matcher);
+		} else if (getConfig().isExecuteUnambiguousOnKeyPressed() && !executedOnPress
+				&& !((HotkeyIndex<?>) matcher).mayBePrefix(pressedHash)) {
+			// No longer hotkey can start with the keys pressed so far, so there is no need to wait for the release.
+			action = considerTaskExecution(stroke.getKey(), matcher);
+			executedOnPress = action != null;
 		}
 
-		return Arrays.asList(action).stream().filter(a -> a != null).collect(Collectors.toSet());
+		return toSet(action);
 	}
 
 	@Override
-	public Set<UserDefinedAction> onKeyStrokeReleased(KeyStroke stroke) {
+	protected Set<UserDefinedAction> onKeyStrokeReleased(KeyStroke stroke, Object matcher) {
 		UserDefinedAction action = null;
-		if (getConfig().isExecuteOnKeyReleased()) {
-			action = considerTaskExecution(stroke.getKey());
+		if (getConfig().isExecuteOnKeyReleased() && !executedOnPress) {
+			action = considerTaskExecution(stroke.getKey(), matcher);
 		}
-		currentKeyChain.clearKeys();
-		return Arrays.asList(action).stream().filter(a -> a != null).collect(Collectors.toSet());
+		clear();
+		return toSet(action);
 	}
 
 	@Override
 	public void clear() {
-		currentKeyChain.clearKeys();
+		Arrays.fill(pressedKeys, 0, pressedCount, null);
+		pressedCount = 0;
+		pressedHash = HotkeyIndex.EMPTY_HASH;
+		executedOnPress = false;
 	}
 
 	@Override
-	public Set<UserDefinedAction> collision(Collection<TaskActivation> activations) {
+	public synchronized Set<UserDefinedAction> collision(Collection<TaskActivation> activations) {
 		Set<KeyChain> keyChains = activations.stream().map(a -> a.getHotkeys()).flatMap(Set::stream).collect(Collectors.toSet());
 
-		Set<UserDefinedAction> collisions = new HashSet<>();
-		for (Entry<KeyChain, UserDefinedAction> entry : keyChainActions.entrySet()) {
-			KeyChain existing = entry.getKey();
-			UserDefinedAction action = entry.getValue();
+		Set<UserDefinedAction> candidates = new HashSet<>();
+		for (KeyChain key : keyChains) {
+			collisionIndex.addCandidates(SeriesIndex.keyCodes(key), candidates);
+		}
 
-			for (KeyChain key : keyChains) {
-				if (existing.collideWith(key)) {
-					collisions.add(action);
+		Set<UserDefinedAction> collisions = new HashSet<>();
+		for (UserDefinedAction action : candidates) {
+			for (KeyChain existing : action.getActivation().getHotkeys()) {
+				for (KeyChain key : keyChains) {
+					if (!existing.isEmpty() && !key.isEmpty() && existing.collideWith(key)) {
+						collisions.add(action);
+					}
 				}
 			}
 		}
@@ -77,38 +109,57 @@ public class KeyChainManager extends KeyStrokeManager {
 	}
 
 	@Override
-	public Set<UserDefinedAction> registerAction(UserDefinedAction action) {
-		Set<UserDefinedAction> toRemove = collision(action.getActivation());
-		toRemove.forEach(a -> unRegisterAction(a));
-
+	protected void addAction(UserDefinedAction action) {
 		for (KeyChain key : action.getActivation().getHotkeys()) {
-			keyChainActions.put(key, action);
+			UserDefinedAction previous = keyChainActions.put(key, action);
+			if (previous != null) {
+				collisionIndex.remove(SeriesIndex.keyCodes(key), previous);
+			}
+			collisionIndex.add(SeriesIndex.keyCodes(key), action);
 		}
+	}
 
-		return toRemove;
+	@Override
+	protected Set<UserDefinedAction> removeAction(UserDefinedAction action) {
+		Set<UserDefinedAction> removed = new HashSet<>();
+		for (KeyChain key : action.getActivation().getHotkeys()) {
+			UserDefinedAction existing = keyChainActions.remove(key);
+			if (existing != null) {
+				collisionIndex.remove(SeriesIndex.keyCodes(key), existing);
+				removed.add(existing);
+			}
+		}
+		return removed;
 	}
 
 	@Override
-	public Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
-		return action.getActivation().getHotkeys().stream().map(k -> keyChainActions.remove(k)).filter(a -> a != null).collect(Collectors.toSet());
+	protected Object buildMatcher() {
+		return new HotkeyIndex<>(keyChainActions);
 	}
 
 	/**
 	 * Given a new key code coming in, consider start executing an action based on its hotkey
 	 * @param keyCode new keyCode coming in
-	 * @return if operation succeeded (even if no action has been invoked)
+	 * @param matcher the {@link HotkeyIndex} of registered hotkeys.
+	 * @return the action to execute, or null if there is none.
 	 */
-	private UserDefinedAction considerTaskExecution(int keyCode) {
+	@SuppressWarnings("unchecked")
+	private UserDefinedAction considerTaskExecution(int keyCode, Object matcher) {
 		if (keyCode == Config.HALT_TASK && getConfig().isEnabledHaltingKeyPressed()) {
 			clear();
 			return null;
 		}
 
-		UserDefinedAction action = keyChainActions.get(currentKeyChain);
+		UserDefinedAction action = ((HotkeyIndex<UserDefinedAction>) matcher).find(pressedHash, pressedKeys, pressedCount);
 		if (action != null) {
-			action.setInvoker(TaskActivation.newBuilder().withHotKey(currentKeyChain.clone()).build());
+			KeyChain invoker = new KeyChain(Arrays.asList(Arrays.copyOf(pressedKeys, pressedCount)));
+			action.setInvoker(TaskActivation.newBuilder().withHotKey(invoker).build());
 		}
 
 		return action;
 	}
+
+	private static Set<UserDefinedAction> toSet(UserDefinedAction action) {
+		return action == null ? Collections.<UserDefinedAction>emptySet() : Collections.singleton(action);
+	}
 }
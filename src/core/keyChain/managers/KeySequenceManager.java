@@ -1,7 +1,9 @@
 package core.keyChain.managers;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import core.config.Config;
@@ -9,16 +11,29 @@ import core.keyChain.KeySequence;
 import core.keyChain.KeyStroke;
 import core.keyChain.TaskActivation;
 import core.userDefinedTask.UserDefinedAction;
+import utilities.AhoCorasickAutomaton;
+import utilities.Pair;
 
 public class KeySequenceManager extends RollingKeySeriesManager {
 
+	/**
+	 * Matches the key codes of all registered key sequences at once. Since key stroke modifiers may match
+	 * any modifier, the automaton only finds candidates, which are then checked against the rolling key series.
+	 * This is the matcher last used on the matcher thread, and only accessed from that thread.
+	 */
+	private AhoCorasickAutomaton<Pair<UserDefinedAction, KeySequence>> automaton;
+	private int state;
+
 	public KeySequenceManager(Config config) {
 		super(config);
+		rebuildMatching();
 	}
 
 	@Override
-	public Set<UserDefinedAction> onKeyStrokePressed(KeyStroke stroke) {
+	protected Set<UserDefinedAction> onKeyStrokePressed(KeyStroke stroke, Object matcher) {
+		use(matcher);
 		currentRollingKeySeries.addKeyStroke(stroke);
+		advance(stroke);
 		if (!getConfig().isExecuteOnKeyReleased()) {
 			return considerTaskExecution(stroke);
 		}
@@ -27,7 +42,8 @@ public class KeySequenceManager extends RollingKeySeriesManager {
 	}
 
 	@Override
-	public Set<UserDefinedAction> onKeyStrokeReleased(KeyStroke stroke) {
+	protected Set<UserDefinedAction> onKeyStrokeReleased(KeyStroke stroke, Object matcher) {
+		use(matcher);
 		if (getConfig().isExecuteOnKeyReleased()) {
 			return considerTaskExecution(stroke);
 		}
@@ -35,6 +51,15 @@ public class KeySequenceManager extends RollingKeySeriesManager {
 		return Collections.<UserDefinedAction>emptySet();
 	}
 
+	@Override
+	protected List<int[]> getSeries(TaskActivation activation) {
+		List<int[]> output = new ArrayList<>();
+		for (KeySequence sequence : activation.getKeySequences()) {
+			output.add(SeriesIndex.keyCodes(sequence));
+		}
+		return output;
+	}
+
 	@Override
 	protected boolean collisionWithAction(UserDefinedAction action, TaskActivation activation) {
 		for (KeySequence sequence : activation.getKeySequences()) {
@@ -49,17 +74,57 @@ public class KeySequenceManager extends RollingKeySeriesManager {
 
 	@Override
 	protected Set<UserDefinedAction> tasksToExecute() {
+		List<Pair<UserDefinedAction, KeySequence>> candidates = automaton.getMatches(state);
+		if (candidates.isEmpty()) {
+			return Collections.<UserDefinedAction>emptySet();
+		}
+
 		Set<UserDefinedAction> output = new HashSet<>();
-		for (UserDefinedAction action : registeredActions) {
-			TaskActivation activation = action.getActivation();
-			for (KeySequence sequence : activation.getKeySequences()) {
-				if (currentRollingKeySeries.collideWith(sequence)) {
-					action.setInvoker(TaskActivation.newBuilder().withKeySequence(sequence.clone()).build());
-					output.add(action);
-				}
+		for (Pair<UserDefinedAction, KeySequence> candidate : candidates) {
+			KeySequence sequence = candidate.getB();
+			if (currentRollingKeySeries.collideWith(sequence)) {
+				UserDefinedAction action = candidate.getA();
+				action.setInvoker(TaskActivation.newBuilder().withKeySequence(sequence.clone()).build());
+				output.add(action);
 			}
 		}
 
 		return output;
 	}
+
+	@Override
+	protected Object buildMatcher() {
+		AhoCorasickAutomaton.Builder<Pair<UserDefinedAction, KeySequence>> builder = AhoCorasickAutomaton.newBuilder();
+		for (UserDefinedAction action : registeredActions) {
+			for (KeySequence sequence : action.getActivation().getKeySequences()) {
+				builder.addPattern(SeriesIndex.keyCodes(sequence), Pair.of(action, sequence));
+			}
+		}
+		return builder.build();
+	}
+
+	@Override
+	protected void resetMatching() {
+		state = AhoCorasickAutomaton.START_STATE;
+	}
+
+	/**
+	 * Start using a newly published matcher, replaying the rolling key series through it.
+	 */
+	@SuppressWarnings("unchecked")
+	private void use(Object matcher) {
+		if (matcher == automaton) {
+			return;
+		}
+
+		automaton = (AhoCorasickAutomaton<Pair<UserDefinedAction, KeySequence>>) matcher;
+		resetMatching();
+		for (KeyStroke stroke : currentRollingKeySeries.getKeyStrokes()) {
+			advance(stroke);
+		}
+	}
+
+	private void advance(KeyStroke stroke) {
+		state = automaton.next(state, stroke.getKey());
+	}
 }
@@ -0,0 +1,199 @@
+package core.keyChain.managers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import core.scheduler.EventRingBuffer;
+import core.scheduler.EventSink;
+
+/**
+ * Hands key events over from the native hook thread to a dedicated matcher thread, so that the native hook callbacks
+ * return immediately regardless of how long matching takes.
+ *
+ * Events are stored as primitives in an {@link EventRingBuffer}, so offering an event neither allocates nor locks.
+ * What happens when the buffer is full is decided by the overflow policy.
+ */
+public class KeyStrokeDispatchQueue {
+
+	private static final Logger LOGGER = Logger.getLogger(KeyStrokeDispatchQueue.class.getName());
+
+	/**
+	 * Drop new events while the queue is full. The native hook thread never waits.
+	 */
+	public static final int OVERFLOW_DROP = 0;
+	/**
+	 * Make the native hook thread wait until there is space in the queue. No event is lost but input may lag.
+	 */
+	public static final int OVERFLOW_WAIT = 1;
+
+	/**
+	 * Default delay after which a matched event is counted as late.
+	 */
+	public static final long DEFAULT_LATE_THRESHOLD_MS = 20;
+
+	private static final int DEFAULT_CAPACITY = 1024;
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private final EventRingBuffer buffer;
+	private final EventSink sink;
+	private final AtomicLong late;
+	private volatile int overflowPolicy;
+	private volatile long lateThresholdNanos;
+
+	private volatile boolean running;
+	private volatile Thread matcher; // Read by the native hook thread to wake the matcher up.
+
+	/**
+	 * @param sink receives the events on the matcher thread. Times are on the {@link System#nanoTime()} scale.
+	 */
+	public KeyStrokeDispatchQueue(EventSink sink) {
+		this(DEFAULT_CAPACITY, sink);
+	}
+
+	/**
+	 * @param capacity minimum number of events that can wait in the queue.
+	 * @param sink receives the events on the matcher thread. Times are on the {@link System#nanoTime()} scale.
+	 */
+	public KeyStrokeDispatchQueue(int capacity, EventSink sink) {
+		this.buffer = new EventRingBuffer(capacity);
+		this.sink = sink;
+		this.late = new AtomicLong();
+		this.overflowPolicy = OVERFLOW_DROP;
+		this.lateThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_LATE_THRESHOLD_MS);
+	}
+
+	/**
+	 * Start the matcher thread.
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+
+		running = true;
+		matcher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				consume();
+			}
+		}, "Key stroke matcher");
+		matcher.setDaemon(true);
+		matcher.start();
+	}
+
+	/**
+	 * Stop the matcher thread once the events already queued are consumed.
+	 */
+	public synchronized void stop() {
+		if (!running) {
+			return;
+		}
+
+		running = false;
+		LockSupport.unpark(matcher);
+		try {
+			matcher.join();
+		} catch (InterruptedException e) {
+			LOGGER.warning("Interrupted while waiting for key stroke matcher to stop.");
+			Thread.currentThread().interrupt();
+		}
+		matcher = null;
+	}
+
+	/**
+	 * Queue an event for the matcher thread. This must only be called from the native hook thread.
+	 *
+	 * @return whether the event was queued.
+	 */
+	public boolean offer(long time, byte opcode, int arg0, int arg1) {
+		Thread consumer = matcher;
+		if (overflowPolicy == OVERFLOW_WAIT) {
+			while (running && buffer.size() >= buffer.getCapacity()) {
+				LockSupport.unpark(consumer);
+				Thread.yield();
+			}
+		}
+
+		boolean queued = buffer.offer(time, opcode, arg0, arg1);
+		LockSupport.unpark(consumer); // Does nothing if the consumer is null.
+		return queued;
+	}
+
+	/**
+	 * @param overflowPolicy one of the OVERFLOW_* constants.
+	 */
+	public void setOverflowPolicy(int overflowPolicy) {
+		if (overflowPolicy != OVERFLOW_DROP && overflowPolicy != OVERFLOW_WAIT) {
+			LOGGER.warning("Unknown overflow policy " + overflowPolicy + ". Keeping policy " + this.overflowPolicy + ".");
+			return;
+		}
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	public int getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * @param lateThresholdMs events matched later than this after they happened are counted as late.
+	 */
+	public void setLateThresholdMs(long lateThresholdMs) {
+		if (lateThresholdMs < 0) {
+			LOGGER.warning("Invalid late threshold " + lateThresholdMs + "ms. Keeping threshold " + getLateThresholdMs() + "ms.");
+			return;
+		}
+		this.lateThresholdNanos = TimeUnit.MILLISECONDS.toNanos(lateThresholdMs);
+	}
+
+	public long getLateThresholdMs() {
+		return TimeUnit.NANOSECONDS.toMillis(lateThresholdNanos);
+	}
+
+	/**
+	 * @return number of events dropped because the queue was full.
+	 */
+	public long getDroppedCount() {
+		return buffer.getDroppedCount();
+	}
+
+	/**
+	 * @return number of events matched later than the late threshold after they happened.
+	 */
+	public long getLateCount() {
+		return late.get();
+	}
+
+	/**
+	 * @return number of events currently waiting to be matched.
+	 */
+	public int getQueuedCount() {
+		return buffer.size();
+	}
+
+	private void consume() {
+		EventSink timedSink = new EventSink() {
+			@Override
+			public void accept(long time, byte opcode, int arg0, int arg1) {
+				if (System.nanoTime() - time > lateThresholdNanos) {
+					late.incrementAndGet();
+				}
+
+				try {
+					sink.accept(time, opcode, arg0, arg1);
+				} catch (Exception e) {
+					LOGGER.log(Level.WARNING, "Exception while matching key stroke", e);
+				}
+			}
+		};
+
+		while (running) {
+			if (buffer.drain(timedSink) == 0) {
+				LockSupport.parkNanos(MAX_PARK_NANOS);
+			}
+		}
+		buffer.drain(timedSink);
+	}
+}
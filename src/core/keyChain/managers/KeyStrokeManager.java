@@ -2,6 +2,7 @@ package core.keyChain.managers;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Set;
 
 import core.config.Config;
@@ -9,9 +10,25 @@ import core.keyChain.KeyStroke;
 import core.keyChain.TaskActivation;
 import core.userDefinedTask.UserDefinedAction;
 
+/**
+ * Matches key strokes against registered actions.
+ *
+ * Registration and key stroke handling happen on different threads. Registration changes the registered actions
+ * under the lock of this manager, then publishes an immutable matcher built from them with a single volatile write.
+ * Key strokes are handled on a single matcher thread (see {@link KeyStrokeDispatchQueue}), which only reads the
+ * published matcher and never locks.
+ */
 public abstract class KeyStrokeManager {
 
+	/**
+	 * Events that a manager can be interested in. See {@link #getInterestedEvents()}.
+	 */
+	public static final int EVENT_KEY_PRESSED = 1;
+	public static final int EVENT_KEY_RELEASED = 2;
+	public static final int EVENT_ALL = EVENT_KEY_PRESSED | EVENT_KEY_RELEASED;
+
 	private Config config;
+	private volatile Object matcher; // Immutable, see buildMatcher().
 
 	public KeyStrokeManager(Config config) {
 		this.config = config;
@@ -23,8 +40,51 @@ public abstract class KeyStrokeManager {
 
 	public abstract void startListening();
 
-	public abstract Set<UserDefinedAction> onKeyStrokePressed(KeyStroke stroke);
-	public abstract Set<UserDefinedAction> onKeyStrokeReleased(KeyStroke stroke);
+	/**
+	 * Events that this manager needs to receive given its registered actions.
+	 * Managers receiving events through an {@link AggregateKeyStrokeManager} only get the events they are interested in.
+	 * This must only change when actions are registered or unregistered, or when the configuration changes.
+	 *
+	 * @return combination of EVENT_* constants, or 0 if this manager does not need any event.
+	 */
+	public int getInterestedEvents() {
+		return EVENT_ALL;
+	}
+
+	/**
+	 * Key codes that this manager needs to receive events for. Same rules as {@link #getInterestedEvents()} apply.
+	 *
+	 * @return the key codes, or null if this manager needs events for all keys.
+	 */
+	public int[] getInterestedKeys() {
+		return null;
+	}
+
+	public final Set<UserDefinedAction> onKeyStrokePressed(KeyStroke stroke) {
+		return onKeyStrokePressed(stroke, matcher);
+	}
+
+	public final Set<UserDefinedAction> onKeyStrokeReleased(KeyStroke stroke) {
+		return onKeyStrokeReleased(stroke, matcher);
+	}
+
+	/**
+	 * Handle a key press using the given matcher.
+	 *
+	 * @param stroke key stroke pressed.
+	 * @param matcher a matcher previously returned by {@link #buildMatcher()}.
+	 * @return actions to execute.
+	 */
+	protected abstract Set<UserDefinedAction> onKeyStrokePressed(KeyStroke stroke, Object matcher);
+
+	/**
+	 * Handle a key release using the given matcher.
+	 *
+	 * @param stroke key stroke released.
+	 * @param matcher a matcher previously returned by {@link #buildMatcher()}.
+	 * @return actions to execute.
+	 */
+	protected abstract Set<UserDefinedAction> onKeyStrokeReleased(KeyStroke stroke, Object matcher);
 
 	public abstract void clear();
 
@@ -33,6 +93,80 @@ public abstract class KeyStrokeManager {
 		return collision(Arrays.asList(activation));
 	}
 
-	public abstract Set<UserDefinedAction> registerAction(UserDefinedAction action);
-	public abstract Set<UserDefinedAction> unRegisterAction(UserDefinedAction action);
+	/**
+	 * Register an action, kicking out registered actions colliding with it.
+	 *
+	 * @param action action to register.
+	 * @return the actions kicked out.
+	 */
+	public synchronized Set<UserDefinedAction> registerAction(UserDefinedAction action) {
+		Set<UserDefinedAction> toRemove = collision(action.getActivation());
+		toRemove.forEach(a -> removeAction(a));
+
+		addAction(action);
+		rebuildMatching();
+		return toRemove;
+	}
+
+	/**
+	 * @param action action to unregister.
+	 * @return the actions removed.
+	 */
+	public synchronized Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
+		Set<UserDefinedAction> removed = removeAction(action);
+		if (!removed.isEmpty()) {
+			rebuildMatching();
+		}
+		return removed;
+	}
+
+	/**
+	 * Register actions in bulk. Unlike {@link #registerAction(UserDefinedAction)}, this does not kick out
+	 * registered actions. Actions colliding with a registered action or with an earlier action in the collection
+	 * are skipped instead. Structures used to match key strokes are only rebuilt once at the end.
+	 *
+	 * @param actions actions to register.
+	 * @return the actions skipped because of collisions.
+	 */
+	public synchronized Set<UserDefinedAction> registerAll(Collection<UserDefinedAction> actions) {
+		Set<UserDefinedAction> skipped = new HashSet<>();
+		for (UserDefinedAction action : actions) {
+			Set<UserDefinedAction> collisions = collision(action.getActivation());
+			boolean registered = collisions.remove(action);
+			if (!collisions.isEmpty()) {
+				skipped.add(action);
+			} else if (!registered) {
+				addAction(action);
+			}
+		}
+		rebuildMatching();
+		return skipped;
+	}
+
+	/**
+	 * Add an action that does not collide with any registered action,
+	 * without rebuilding the structures used to match key strokes.
+	 */
+	protected abstract void addAction(UserDefinedAction action);
+
+	/**
+	 * Remove an action without rebuilding the structures used to match key strokes.
+	 *
+	 * @return the actions removed.
+	 */
+	protected abstract Set<UserDefinedAction> removeAction(UserDefinedAction action);
+
+	/**
+	 * Build the structures used to match the registered actions against incoming key strokes.
+	 * This is called with the lock of this manager held whenever the registered actions change.
+	 * The returned matcher is read by the matcher thread, so it must not be modified afterwards.
+	 */
+	protected abstract Object buildMatcher();
+
+	/**
+	 * Build and publish a new matcher for the registered actions.
+	 */
+	protected final synchronized void rebuildMatching() {
+		matcher = buildMatcher();
+	}
 }
@@ -1,6 +1,5 @@
 package core.keyChain.managers;
 
-import java.awt.Point;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
@@ -8,22 +7,20 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
-import org.jnativehook.mouse.NativeMouseEvent;
-
 import core.config.Config;
 import core.keyChain.KeyStroke;
 import core.keyChain.MouseGesture;
 import core.keyChain.TaskActivation;
 import core.keyChain.mouseGestureRecognition.MouseGestureClassifier;
+import core.keyChain.mouseGestureRecognition.MousePointRingBuffer;
 import core.userDefinedTask.UserDefinedAction;
-import globalListener.GlobalMouseListener;
+import globalListener.NativeInputEvent;
+import globalListener.NativeInputEventBus;
 import utilities.Function;
 
 /**
@@ -33,50 +30,64 @@ public class MouseGestureManager extends KeyStrokeManager {
 
 	private static final Logger LOGGER = Logger.getLogger(MouseGestureManager.class.getName());
 
-	private static final int MAX_COORDINATES_COUNT = 1000;
+	/**
+	 * Number of most recent points kept for classification. Older points of a long gesture are overwritten.
+	 */
+	private static final int MAX_COORDINATES_COUNT = 1024;
 
 	private final MouseGestureClassifier mouseGestureRecognizer;
 	private final Map<MouseGesture, UserDefinedAction> actionMap;
-	private final GlobalMouseListener mouseListener;
-	private final Queue<Point> coordinates;
-	private boolean enabled;
+	private final Function<NativeInputEvent, Boolean> mouseMoved;
+	private final MousePointRingBuffer coordinates; // Filled on the native hook thread, read on the matcher thread.
+	private volatile boolean enabled;
 
 	public MouseGestureManager(Config config) {
 		super(config);
 		mouseGestureRecognizer = new MouseGestureClassifier();
 		actionMap = new HashMap<>();
-		coordinates = new ConcurrentLinkedQueue<Point>();
-		mouseListener = new GlobalMouseListener();
+		coordinates = new MousePointRingBuffer(MAX_COORDINATES_COUNT);
+		mouseMoved = new Function<NativeInputEvent, Boolean> () {
+			@Override
+			public Boolean apply(NativeInputEvent d) {
+				if (enabled) {
+					coordinates.add(d.getX(), d.getY());
+				}
+				return true;
+			}};
+		rebuildMatching();
 	}
 
 	/**
-	 * Start listening to the mouse for movement
+	 * Mouse movement is only listened to while a gesture is being recorded (see {@link #startRecording()}).
 	 */
 	@Override
 	public void startListening() {
-		mouseListener.setMouseMoved(new Function<NativeMouseEvent, Boolean> () {
-			@Override
-			public Boolean apply(NativeMouseEvent d) {
-				if (enabled && coordinates.size() < MAX_COORDINATES_COUNT) {
-					coordinates.add(new Point(d.getX(), d.getY()));
-				}
-				return true;
-			}});
-		mouseListener.startListening();
+		// Do nothing.
 	}
 
 	@Override
-	public Set<UserDefinedAction> onKeyStrokePressed(KeyStroke stroke) {
-		if (stroke.getKey() == getConfig().getMouseGestureActivationKey()) {
+	public int getInterestedEvents() {
+		return actionMap.isEmpty() ? 0 : EVENT_ALL;
+	}
+
+	@Override
+	public int[] getInterestedKeys() {
+		return new int[] { getConfig().getMouseGestureActivationKey() };
+	}
+
+	@Override
+	protected Set<UserDefinedAction> onKeyStrokePressed(KeyStroke stroke, Object matcher) {
+		if (stroke.getKey() == getConfig().getMouseGestureActivationKey() && !enabled && !((Map<?, ?>) matcher).isEmpty()) {
 			startRecording();
 		}
 		return Collections.<UserDefinedAction>emptySet();
 	}
 
 	@Override
-	public Set<UserDefinedAction> onKeyStrokeReleased(KeyStroke stroke) {
+	protected Set<UserDefinedAction> onKeyStrokeReleased(KeyStroke stroke, Object matcher) {
 		if (stroke.getKey() == getConfig().getMouseGestureActivationKey()) {
-			UserDefinedAction action = finishRecording();
+			@SuppressWarnings("unchecked")
+			UserDefinedAction action = finishRecording((Map<MouseGesture, UserDefinedAction>) matcher);
 			return new HashSet<>(Arrays.asList(action));
 		}
 		return Collections.<UserDefinedAction>emptySet();
@@ -84,7 +95,7 @@ public class MouseGestureManager extends KeyStrokeManager {
 
 	@Override
 	public void clear() {
-		enabled = false;
+		stopListening();
 		coordinates.clear();
 	}
 
@@ -95,7 +106,7 @@ public class MouseGestureManager extends KeyStrokeManager {
 	 * @return set of any collision occurs
 	 */
 	@Override
-	public Set<UserDefinedAction> collision(Collection<TaskActivation> activations) {
+	public synchronized Set<UserDefinedAction> collision(Collection<TaskActivation> activations) {
 		Set<MouseGesture> gestures = activations.stream().map(a -> a.getMouseGestures()).flatMap(Set::stream).collect(Collectors.toSet());
 
 		Set<MouseGesture> collisions = new HashSet<>(actionMap.keySet());
@@ -108,25 +119,11 @@ public class MouseGestureManager extends KeyStrokeManager {
 		return output;
 	}
 
-	/**
-	 * Register an action associated with a {@link MouseGesture}.
-	 *
-	 * @param action the action to execute
-	 * @return the gestures that are collided
-	 */
 	@Override
-	public Set<UserDefinedAction> registerAction(UserDefinedAction action) {
-		Set<UserDefinedAction> collisions = new HashSet<>();
+	protected void addAction(UserDefinedAction action) {
 		for (MouseGesture gesture : action.getActivation().getMouseGestures()) {
-			UserDefinedAction collided = actionMap.get(gesture);
-			if (collided != null) {
-				collisions.add(collided);
-			}
-
 			actionMap.put(gesture, action);
 		}
-
-		return collisions;
 	}
 
 	/**
@@ -136,7 +133,7 @@ public class MouseGestureManager extends KeyStrokeManager {
 	 * @return action (if exist) associated with this gesture
 	 */
 	@Override
-	public Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
+	protected Set<UserDefinedAction> removeAction(UserDefinedAction action) {
 		Set<UserDefinedAction> output = new HashSet<>();
 		for (MouseGesture gesture : action.getActivation().getMouseGestures()) {
 			UserDefinedAction removed = actionMap.remove(gesture);
@@ -148,26 +145,34 @@ public class MouseGestureManager extends KeyStrokeManager {
 		return output;
 	}
 
+	@Override
+	protected Object buildMatcher() {
+		return Collections.unmodifiableMap(new HashMap<>(actionMap));
+	}
+
 	/**
-	 * Start recording the gesture
+	 * Start recording the gesture, listening to the mouse for movement until the recording finishes.
 	 */
 	protected void startRecording() {
 		coordinates.clear();
 		enabled = true;
+		NativeInputEventBus.getInstance().subscribe(mouseMoved, NativeInputEvent.MOUSE_MOVED, NativeInputEventBus.PRIORITY_LOW);
 	}
 
 	/**
 	 * Finish recording the gesture. Now decode it.
+	 *
+	 * @param gestureActions the published gesture to action mapping.
 	 */
-	protected UserDefinedAction finishRecording() {
-		enabled = false;
+	protected UserDefinedAction finishRecording(Map<MouseGesture, UserDefinedAction> gestureActions) {
+		stopListening();
 		try {
 			MouseGesture gesture = processCurrentData();
 			if (MouseGesture.IGNORED_CLASSIFICATIONS.contains(gesture)) {
 				return null;
 			}
 
-			UserDefinedAction task = actionMap.get(gesture);
+			UserDefinedAction task = gestureActions.get(gesture);
 			if (task != null) {
 				task.setInvoker(TaskActivation.newBuilder().withMouseGesture(gesture).build());
 			}
@@ -185,14 +190,14 @@ public class MouseGestureManager extends KeyStrokeManager {
 	 * @throws IOException
 	 */
 	private MouseGesture processCurrentData() throws IOException {
-		int size = coordinates.size();
-		return mouseGestureRecognizer.classifyGesture(coordinates, size);
+		return mouseGestureRecognizer.classifyGesture(coordinates);
 	}
 
 	/**
-	 * Stop listening to the mouse for movement
+	 * Stop recording and listening to the mouse for movement
 	 */
 	protected void stopListening() {
-		mouseListener.stopListening();
+		enabled = false;
+		NativeInputEventBus.getInstance().unsubscribe(mouseMoved);
 	}
 }
@@ -1,24 +1,40 @@
 package core.keyChain.managers;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import core.config.Config;
 import core.keyChain.ActivationPhrase;
 import core.keyChain.KeyStroke;
 import core.keyChain.TaskActivation;
+import core.keyChain.KeyboardState;
 import core.userDefinedTask.UserDefinedAction;
+import utilities.AhoCorasickAutomaton;
+import utilities.KeyCodeToChar;
+import utilities.Pair;
 
 public class PhraseManager extends RollingKeySeriesManager {
 
+	/**
+	 * Matches all registered phrases at once against the typed characters.
+	 * This is the matcher last used on the matcher thread, and only accessed from that thread.
+	 */
+	private AhoCorasickAutomaton<Pair<UserDefinedAction, ActivationPhrase>> automaton;
+	private int state;
+
 	public PhraseManager(Config config) {
 		super(config);
+		rebuildMatching();
 	}
 
 	@Override
-	public Set<UserDefinedAction> onKeyStrokePressed(KeyStroke stroke) {
+	protected Set<UserDefinedAction> onKeyStrokePressed(KeyStroke stroke, Object matcher) {
+		use(matcher);
 		currentRollingKeySeries.addKeyStroke(stroke);
+		advance();
 		if (!getConfig().isExecuteOnKeyReleased()) {
 			return considerTaskExecution(stroke);
 		}
@@ -27,8 +43,10 @@ public class PhraseManager extends RollingKeySeriesManager {
 	}
 
 	@Override
-	public Set<UserDefinedAction> onKeyStrokeReleased(KeyStroke stroke) {
+	protected Set<UserDefinedAction> onKeyStrokeReleased(KeyStroke stroke, Object matcher) {
+		use(matcher);
 		currentRollingKeySeries.addKeyStroke(stroke);
+		advance();
 		if (getConfig().isExecuteOnKeyReleased()) {
 			return considerTaskExecution(stroke);
 		}
@@ -36,6 +54,15 @@ public class PhraseManager extends RollingKeySeriesManager {
 		return Collections.<UserDefinedAction>emptySet();
 	}
 
+	@Override
+	protected List<int[]> getSeries(TaskActivation activation) {
+		List<int[]> output = new ArrayList<>();
+		for (ActivationPhrase phrase : activation.getPhrases()) {
+			output.add(phrase.getValue().chars().toArray());
+		}
+		return output;
+	}
+
 	@Override
 	protected boolean collisionWithAction(UserDefinedAction action, TaskActivation activation) {
 		for (ActivationPhrase phrase : activation.getPhrases()) {
@@ -50,17 +77,62 @@ public class PhraseManager extends RollingKeySeriesManager {
 
 	@Override
 	protected Set<UserDefinedAction> tasksToExecute() {
+		List<Pair<UserDefinedAction, ActivationPhrase>> matches = automaton.getMatches(state);
+		int lastKey = currentRollingKeySeries.getLastKey();
+		if (matches.isEmpty() || !KeyCodeToChar.hasCharForCode(lastKey, KeyboardState.getDefault())) {
+			return Collections.<UserDefinedAction>emptySet();
+		}
+
 		Set<UserDefinedAction> output = new HashSet<>();
+		for (Pair<UserDefinedAction, ActivationPhrase> match : matches) {
+			UserDefinedAction action = match.getA();
+			action.setInvoker(TaskActivation.newBuilder().withPhrase(match.getB().clone()).build());
+			output.add(action);
+		}
+
+		return output;
+	}
+
+	@Override
+	protected Object buildMatcher() {
+		AhoCorasickAutomaton.Builder<Pair<UserDefinedAction, ActivationPhrase>> builder = AhoCorasickAutomaton.newBuilder();
 		for (UserDefinedAction action : registeredActions) {
-			TaskActivation activation = action.getActivation();
-			for (ActivationPhrase phrase : activation.getPhrases()) {
-				if (currentRollingKeySeries.collideWith(phrase)) {
-					action.setInvoker(TaskActivation.newBuilder().withPhrase(phrase.clone()).build());
-					output.add(action);
-				}
+			for (ActivationPhrase phrase : action.getActivation().getPhrases()) {
+				builder.addPattern(phrase.getValue().chars().toArray(), Pair.of(action, phrase));
 			}
 		}
+		return builder.build();
+	}
 
-		return output;
+	@Override
+	protected void resetMatching() {
+		state = AhoCorasickAutomaton.START_STATE;
+	}
+
+	/**
+	 * Start using a newly published matcher, feeding the typed text through it.
+	 */
+	@SuppressWarnings("unchecked")
+	private void use(Object matcher) {
+		if (matcher == automaton) {
+			return;
+		}
+
+		automaton = (AhoCorasickAutomaton<Pair<UserDefinedAction, ActivationPhrase>>) matcher;
+		resetMatching();
+		feed(currentRollingKeySeries.getTypedString());
+	}
+
+	/**
+	 * Feed the characters typed by the last key stroke to the automaton.
+	 */
+	private void advance() {
+		feed(currentRollingKeySeries.getLastTyped());
+	}
+
+	private void feed(String typed) {
+		for (int i = 0; i < typed.length(); i++) {
+			state = automaton.next(state, typed.charAt(i));
+		}
 	}
 }
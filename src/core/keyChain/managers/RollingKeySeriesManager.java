@@ -1,9 +1,8 @@
 package core.keyChain.managers;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -16,13 +15,15 @@ import core.userDefinedTask.UserDefinedAction;
 public abstract class RollingKeySeriesManager extends KeyStrokeManager {
 
 	protected final RollingKeySeries currentRollingKeySeries;
-	protected final List<UserDefinedAction> registeredActions;
+	protected final Set<UserDefinedAction> registeredActions;
+	private final SeriesIndex<UserDefinedAction> collisionIndex;
 
 	public RollingKeySeriesManager(Config config) {
 		super(config);
 
 		this.currentRollingKeySeries = new RollingKeySeries();
-		this.registeredActions = new ArrayList<>();
+		this.registeredActions = new LinkedHashSet<>();
+		this.collisionIndex = new SeriesIndex<>(SeriesIndex.MODE_SUBSTRING);
 	}
 
 	@Override
@@ -31,21 +32,26 @@ public abstract class RollingKeySeriesManager extends KeyStrokeManager {
 	}
 
 	@Override
-	public abstract Set<UserDefinedAction> onKeyStrokePressed(KeyStroke stroke);
-
-	@Override
-	public abstract Set<UserDefinedAction> onKeyStrokeReleased(KeyStroke stroke);
+	public int getInterestedEvents() {
+		return registeredActions.isEmpty() ? 0 : EVENT_ALL;
+	}
 
 	@Override
 	public final void clear() {
 		currentRollingKeySeries.clearKeys();
+		resetMatching();
 	}
 
 	@Override
-	public final Set<UserDefinedAction> collision(Collection<TaskActivation> activations) {
+	public final synchronized Set<UserDefinedAction> collision(Collection<TaskActivation> activations) {
 		Set<UserDefinedAction> output = new HashSet<>();
 		for (TaskActivation activation : activations) {
-			for (UserDefinedAction action : registeredActions) {
+			Set<UserDefinedAction> candidates = new HashSet<>();
+			for (int[] series : getSeries(activation)) {
+				collisionIndex.addCandidates(series, candidates);
+			}
+
+			for (UserDefinedAction action : candidates) {
 				if (collisionWithAction(action, activation)) {
 					output.add(action);
 				}
@@ -55,29 +61,40 @@ public abstract class RollingKeySeriesManager extends KeyStrokeManager {
 	}
 
 	@Override
-	public final Set<UserDefinedAction> registerAction(UserDefinedAction action) {
-		Set<UserDefinedAction> toRemove = collision(action.getActivation());
-		toRemove.forEach(a -> unRegisterAction(a));
-
-		registeredActions.add(action);
-		return toRemove;
+	protected final void addAction(UserDefinedAction action) {
+		if (registeredActions.add(action)) {
+			for (int[] series : getSeries(action.getActivation())) {
+				collisionIndex.add(series, action);
+			}
+		}
 	}
 
 	@Override
-	public final Set<UserDefinedAction> unRegisterAction(UserDefinedAction action) {
+	protected final Set<UserDefinedAction> removeAction(UserDefinedAction action) {
 		Set<UserDefinedAction> output = new HashSet<>();
-		for (Iterator<UserDefinedAction> iterator = registeredActions.iterator(); iterator.hasNext();) {
-			UserDefinedAction existing = iterator.next();
-			if (existing.equals(action)) {
-				output.add(existing);
-				iterator.remove();
+		if (registeredActions.remove(action)) {
+			for (int[] series : getSeries(action.getActivation())) {
+				collisionIndex.remove(series, action);
 			}
+			output.add(action);
 		}
 		return output;
 	}
 
+	/**
+	 * @return the symbols of each activation series handled by this manager, used to index them for collision checks.
+	 * Two series can only collide if the symbols of one contain the symbols of the other.
+	 */
+	protected abstract List<int[]> getSeries(TaskActivation activation);
+
 	protected abstract boolean collisionWithAction(UserDefinedAction action, TaskActivation activation);
 
+	/**
+	 * Forget the key strokes seen so far for matching. This is called on the matcher thread
+	 * whenever the rolling key series is cleared.
+	 */
+	protected abstract void resetMatching();
+
 	/**
 	 * Given a new key stroke coming in, consider start executing actions based on their activations.
 	 * @return set of actions to execute.
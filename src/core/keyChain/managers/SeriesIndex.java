@@ -0,0 +1,138 @@
+package core.keyChain.managers;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import core.keyChain.KeySeries;
+import core.keyChain.KeyStroke;
+
+/**
+ * Index of series of symbols (key codes or characters) to find the ones that may collide with a given series,
+ * without comparing it against every indexed series.
+ *
+ * In {@link #MODE_PREFIX}, two series collide if one is a prefix of the other (as for key chains).
+ * In {@link #MODE_SUBSTRING}, two series collide if one contains the other (as for key sequences and phrases).
+ * Series are looked up by hash, so the candidates found must still be checked exactly by the caller.
+ * Empty series are not indexed since they never trigger.
+ *
+ * @param <T> type of the values associated with the series.
+ */
+class SeriesIndex<T> {
+
+	static final int MODE_PREFIX = 0;
+	static final int MODE_SUBSTRING = 1;
+
+	private final int mode;
+	private final Map<Long, Map<T, Integer>> wholes; // Hash of each series.
+	private final Map<Long, Map<T, Integer>> parts; // Hash of each prefix or substring of each series.
+
+	SeriesIndex(int mode) {
+		this.mode = mode;
+		this.wholes = new HashMap<>();
+		this.parts = new HashMap<>();
+	}
+
+	/**
+	 * Index a series. The same value may be added multiple times with different series.
+	 */
+	void add(int[] series, T value) {
+		update(series, value, 1);
+	}
+
+	/**
+	 * Remove a series previously added with the same value.
+	 */
+	void remove(int[] series, T value) {
+		update(series, value, -1);
+	}
+
+	/**
+	 * Find the values of indexed series that may collide with the given series.
+	 *
+	 * @param series series to check.
+	 * @param output collection to add the values to.
+	 */
+	void addCandidates(int[] series, Collection<T> output) {
+		if (series.length == 0) {
+			return;
+		}
+
+		// Indexed series containing the given series.
+		addAll(parts.get(hash(series)), output);
+		// Indexed series contained in the given series.
+		int maxStart = mode == MODE_PREFIX ? 0 : series.length - 1;
+		for (int start = 0; start <= maxStart; start++) {
+			long hash = HotkeyIndex.EMPTY_HASH;
+			for (int end = start; end < series.length; end++) {
+				hash = HotkeyIndex.extendHash(hash, series[end]);
+				addAll(wholes.get(hash), output);
+			}
+		}
+	}
+
+	private void update(int[] series, T value, int delta) {
+		if (series.length == 0) {
+			return;
+		}
+
+		count(wholes, hash(series), value, delta);
+		int maxStart = mode == MODE_PREFIX ? 0 : series.length - 1;
+		for (int start = 0; start <= maxStart; start++) {
+			long hash = HotkeyIndex.EMPTY_HASH;
+			for (int end = start; end < series.length; end++) {
+				hash = HotkeyIndex.extendHash(hash, series[end]);
+				count(parts, hash, value, delta);
+			}
+		}
+	}
+
+	private static <T> void count(Map<Long, Map<T, Integer>> index, long hash, T value, int delta) {
+		Map<T, Integer> values = index.get(hash);
+		if (values == null) {
+			if (delta < 0) {
+				return;
+			}
+			values = new HashMap<>();
+			index.put(hash, values);
+		}
+
+		Integer count = values.get(value);
+		int newCount = (count == null ? 0 : count) + delta;
+		if (newCount > 0) {
+			values.put(value, newCount);
+		} else {
+			values.remove(value);
+			if (values.isEmpty()) {
+				index.remove(hash);
+			}
+		}
+	}
+
+	private static <T> void addAll(Map<T, Integer> values, Collection<T> output) {
+		if (values != null) {
+			output.addAll(values.keySet());
+		}
+	}
+
+	/**
+	 * @return the key codes of the key strokes in a series.
+	 */
+	static int[] keyCodes(KeySeries series) {
+		List<KeyStroke> strokes = series.getKeyStrokes();
+		int[] keys = new int[strokes.size()];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = strokes.get(i).getKey();
+		}
+		return keys;
+	}
+
+	private static long hash(int[] series) {
+		long hash = HotkeyIndex.EMPTY_HASH;
+		for (int symbol : series) {
+			hash = HotkeyIndex.extendHash(hash, symbol);
+		}
+		return hash;
+	}
+}
@@ -2,7 +2,6 @@ package core.keyChain.mouseGestureRecognition;
 
 import java.awt.Point;
 import java.util.ArrayList;
-import java.util.Queue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,22 +17,31 @@ public class MouseGestureClassifier {
 	private static final Logger LOGGER = Logger.getLogger(MouseGestureClassifier.class.getName());
 
 	LogisticRegressionModel logisticRegressionModel;
+	// Reused to read the recorded points.
+	private int[] xs;
+	private int[] ys;
 
 	public MouseGestureClassifier() {
+		xs = new int[0];
+		ys = new int[0];
 		logisticRegressionModel = new LogisticRegressionModel();
 		logisticRegressionModel.load();
 	}
 
 	/**
-	 * Classify the mouse gesture given an {@link Queue} of points.
-	 * At the end of the method, the number of points considered during classification
-	 * will be removed from the queue.
+	 * Classify the mouse gesture given the points recorded in a {@link MousePointRingBuffer}.
+	 * The points are read but not removed from the buffer.
+	 * This must be called from the consumer thread of the buffer.
 	 *
-	 * @param points a {@link Queue} of points ordered chronologically.
-	 * @param size the number of points to be considered in the queue.
+	 * @param points buffer of the most recent points.
 	 * @return the mouse gesture classified by the model.
 	 */
-	public MouseGesture classifyGesture(Queue<Point> points, int size) {
+	public MouseGesture classifyGesture(MousePointRingBuffer points) {
+		if (xs.length < points.getCapacity()) {
+			xs = new int[points.getCapacity()];
+			ys = new int[points.getCapacity()];
+		}
+		int size = points.read(xs, ys);
 		if (size < DataNormalizer.POINT_COUNT) {
 			LOGGER.log(Level.FINE, "Not enough points for classification. "
 					+ "Required at least {0} points but provided {1} points.",
@@ -43,7 +51,7 @@ public class MouseGestureClassifier {
 
 		ArrayList<Point> input = new ArrayList<>(size);
 		for (int i = 0; i < size; i++) {
-			input.add(points.poll());
+			input.add(new Point(xs[i], ys[i]));
 		}
 
 		ArrayList<Float> normalized = new DataNormalizer().normalize(input);
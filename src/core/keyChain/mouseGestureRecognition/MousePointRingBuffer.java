@@ -0,0 +1,94 @@
+package core.keyChain.mouseGestureRecognition;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single producer ring buffer of mouse coordinates, stored in preallocated primitive arrays.
+ * Adding a point neither allocates nor locks. When the buffer is full, the oldest points are overwritten,
+ * so the buffer always holds the most recent points.
+ *
+ * Only one thread may call {@link #add(int, int)} and only one (other) thread may call
+ * {@link #clear()} and {@link #read(int[], int[])}.
+ */
+public class MousePointRingBuffer {
+
+	private final int capacity;
+	private final int mask;
+	private final int[] xs;
+	private final int[] ys;
+
+	private final AtomicLong written; // Number of points ever added. Written by the producer only.
+	private long start; // Value of written when the buffer was last cleared. Accessed by the consumer only.
+
+	/**
+	 * @param capacity minimum number of recent points to keep. This is rounded up to a power of two.
+	 */
+	public MousePointRingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.capacity = size;
+		this.mask = size - 1;
+		this.xs = new int[size];
+		this.ys = new int[size];
+		this.written = new AtomicLong();
+	}
+
+	/**
+	 * Add a point, overwriting the oldest one if the buffer is full. This must only be called from the producer thread.
+	 */
+	public void add(int x, int y) {
+		long w = written.get();
+		int slot = (int) (w & mask);
+		xs[slot] = x;
+		ys[slot] = y;
+		written.lazySet(w + 1);
+	}
+
+	/**
+	 * Discard all points added so far. This must only be called from the consumer thread.
+	 */
+	public void clear() {
+		start = written.get();
+	}
+
+	/**
+	 * @return number of points that {@link #read(int[], int[])} would currently return at most.
+	 */
+	public int size() {
+		return (int) Math.min(written.get() - start, capacity);
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Copy the most recent points, oldest first, without removing them. This must only be called from the consumer thread.
+	 * Points overwritten by the producer while copying are left out.
+	 *
+	 * @param x output array for the x coordinates, of length at least {@link #getCapacity()}.
+	 * @param y output array for the y coordinates, of length at least {@link #getCapacity()}.
+	 * @return number of points copied.
+	 */
+	public int read(int[] x, int[] y) {
+		long end = written.get();
+		long from = Math.max(start, end - capacity);
+		for (long i = from; i < end; i++) {
+			int slot = (int) (i & mask);
+			x[(int) (i - from)] = xs[slot];
+			y[(int) (i - from)] = ys[slot];
+		}
+
+		// The producer may have overwritten the oldest slots (or be writing one) while they were copied.
+		long overwritten = written.get() - capacity + 1 - from;
+		if (overwritten <= 0) {
+			return (int) (end - from);
+		}
+		if (overwritten >= end - from) {
+			return 0;
+		}
+		int count = (int) (end - from - overwritten);
+		System.arraycopy(x, (int) overwritten, x, 0, count);
+		System.arraycopy(y, (int) overwritten, y, 0, count);
+		return count;
+	}
+}
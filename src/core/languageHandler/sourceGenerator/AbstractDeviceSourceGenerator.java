@@ -6,10 +6,10 @@ public abstract class AbstractDeviceSourceGenerator {
 	 * Generate source code for an action.
 	 *
 	 * @param action action to generate source code for.
-	 * @param params parameters for this action.
+	 * @param params source code of the parameters for this action.
 	 * @return the source code for this action, or null if error occurs.
 	 */
-	protected String getSourceCode(String action, int[] params) {
+	protected String getSourceCode(String action, String[] params) {
 		if (!isKnownAction(action)) {
 			return null;
 		}
@@ -21,10 +21,10 @@ public abstract class AbstractDeviceSourceGenerator {
 	 * Generate source code for a known (i.e. recognized/accepted) action.
 	 *
 	 * @param action action to generate source code for.
-	 * @param param parameters for this action.
+	 * @param param source code of the parameters for this action.
 	 * @return the source code for this action, or null if error occurs.
 	 */
-	protected abstract String internalGetSourceCode(String action, int[] param);
+	protected abstract String internalGetSourceCode(String action, String[] param);
 
 	/**
 	 * @param action action to check.
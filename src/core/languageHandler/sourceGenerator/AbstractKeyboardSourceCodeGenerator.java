@@ -10,7 +10,7 @@ public abstract class AbstractKeyboardSourceCodeGenerator extends AbstractDevice
 	}
 
 	@Override
-	protected final String internalGetSourceCode(String action, int[] params) {
+	protected final String internalGetSourceCode(String action, String[] params) {
 		switch (action) {
 		case "type":
 			return type(params);
@@ -25,22 +25,22 @@ public abstract class AbstractKeyboardSourceCodeGenerator extends AbstractDevice
 
 	/**
 	 * Source code to type keys.
-	 * @param params parameters to generate the source code.
+	 * @param params source code of the parameters.
 	 * @return source code for this action.
 	 */
-	protected abstract String type(int[] params);
+	protected abstract String type(String[] params);
 
 	/**
 	 * Source code to press a key.
-	 * @param params parameters to generate the source code.
+	 * @param params source code of the parameters.
 	 * @return source code for this action.
 	 */
-	protected abstract String press(int[] params);
+	protected abstract String press(String[] params);
 
 	/**
 	 * Source code to release a key.
-	 * @param params parameters to generate the source code.
+	 * @param params source code of the parameters.
 	 * @return source code for this action.
 	 */
-	protected abstract String release(int[] params);
+	protected abstract String release(String[] params);
 }
@@ -10,7 +10,7 @@ public abstract class AbstractMouseSourceCodeGenerator extends AbstractDeviceSou
 	}
 
 	@Override
-	protected final String internalGetSourceCode(String action, int[] params) {
+	protected final String internalGetSourceCode(String action, String[] params) {
 		switch (action) {
 		case "move":
 			return move(params);
@@ -29,36 +29,36 @@ public abstract class AbstractMouseSourceCodeGenerator extends AbstractDeviceSou
 
 	/**
 	 * Source code to move mouse to a position.
-	 * @param params parameters to generate the source code.
+	 * @param params source code of the parameters.
 	 * @return source code for this action.
 	 */
-	protected abstract String move(int[] params);
+	protected abstract String move(String[] params);
 
 	/**
 	 * Source code to move mouse by to a certain position.
-	 * @param params parameters to generate the source code.
+	 * @param params source code of the parameters.
 	 * @return source code for this action.
 	 */
-	protected abstract String moveBy(int[] params);
+	protected abstract String moveBy(String[] params);
 
 	/**
 	 * Source code to click a mask of the mouse.
-	 * @param params parameters to generate the source code.
+	 * @param params source code of the parameters.
 	 * @return source code for this action.
 	 */
-	protected abstract String click(int[] params);
+	protected abstract String click(String[] params);
 
 	/**
 	 * Source code to press a mask of the mouse.
-	 * @param params parameters to generate the source code.
+	 * @param params source code of the parameters.
 	 * @return source code for this action.
 	 */
-	protected abstract String press(int[] params);
+	protected abstract String press(String[] params);
 
 	/**
 	 * Source code to release a mask of the mouse.
-	 * @param params parameters to generate the source code.
+	 * @param params source code of the parameters.
 	 * @return source code for this action.
 	 */
-	protected abstract String release(int[] params);
+	protected abstract String release(String[] params);
 }
@@ -2,12 +2,14 @@ package core.languageHandler.sourceGenerator;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
 import staticResources.BootStrapResources;
 import core.languageHandler.Language;
-import core.scheduler.SchedulingData;
+import core.scheduler.EventOpcode;
+import core.scheduler.EventSource;
 
 public abstract class AbstractSourceGenerator {
 
@@ -20,6 +22,27 @@ public abstract class AbstractSourceGenerator {
 	protected static final String TWO_TAB = TAB + TAB;
 	protected static final String THREE_TAB = TWO_TAB + TAB;
 	protected static final String FOUR_TAB = THREE_TAB + TAB;
+	protected static final String FIVE_TAB = FOUR_TAB + TAB;
+	protected static final String SIX_TAB = FIVE_TAB + TAB;
+
+	/**
+	 * Generate one statement per event.
+	 */
+	public static final int SOURCE_MODE_STATEMENTS = 0;
+	/**
+	 * Generate the events as packed data and a loop interpreting them, so that the size of the generated code
+	 * does not depend on the number of events.
+	 */
+	public static final int SOURCE_MODE_DATA_TABLE = 1;
+	/**
+	 * Use {@link #SOURCE_MODE_DATA_TABLE} when there are more than {@link #DATA_TABLE_THRESHOLD} events,
+	 * and {@link #SOURCE_MODE_STATEMENTS} otherwise.
+	 */
+	public static final int SOURCE_MODE_AUTO = 2;
+	/**
+	 * Beyond this many events, generated statements risk exceeding the method size limit of the JVM.
+	 */
+	private static final int DATA_TABLE_THRESHOLD = 2000;
 
 	private static final Map<Language, AbstractSourceGenerator> REFERENCE_SOURCES;
 	static {
@@ -40,13 +63,22 @@ public abstract class AbstractSourceGenerator {
 
 	protected AbstractKeyboardSourceCodeGenerator keyboardSourceCodeGenerator;
 	protected AbstractMouseSourceCodeGenerator mouseSourceCodeGenerator;
+	private int sourceMode;
 
 	public AbstractSourceGenerator() {
 		source = new StringBuffer();
-		sourceScheduler = new TaskSourceScheduler();
+		sourceScheduler = new TaskSourceScheduler(this);
 
 		keyboardSourceCodeGenerator = buildKeyboardSourceCodeGenerator();
 		mouseSourceCodeGenerator = buildMouseSourceCodeGenerator();
+		sourceMode = SOURCE_MODE_AUTO;
+	}
+
+	/**
+	 * @param sourceMode one of {@link #SOURCE_MODE_STATEMENTS}, {@link #SOURCE_MODE_DATA_TABLE} or {@link #SOURCE_MODE_AUTO}.
+	 */
+	public void setSourceMode(int sourceMode) {
+		this.sourceMode = sourceMode;
 	}
 
 	public final boolean submitTask(long time, String device, String action, int[] param) {
@@ -58,20 +90,50 @@ public abstract class AbstractSourceGenerator {
 	}
 
 	protected boolean internalSubmitTask(long time, String device, String action, int[] params) {
-		String mid = "";
-		if (device.equals("mouse")) {
-			mid = mouseSourceCodeGenerator.getSourceCode(action, params);
-		} else if (device.equals("keyBoard")) {
-			mid = keyboardSourceCodeGenerator.getSourceCode(action, params);
-		} else {
+		byte opcode = EventOpcode.of(device, action);
+		if (opcode == EventOpcode.UNKNOWN || params.length < EventOpcode.getArgCount(opcode)) {
 			return false;
 		}
 
-		return mid == null ? false : sourceScheduler.addTask(new SchedulingData<String>(time, getSourceTab() + mid + "\n"));
+		int arg1 = params.length > 1 ? params[1] : 0;
+		return sourceScheduler.addTask(time, opcode, params[0], arg1);
+	}
+
+	/**
+	 * Generate one indented line of source code for an event.
+	 *
+	 * @param opcode {@link EventOpcode} of the event.
+	 * @param arg0 first argument of the event.
+	 * @param arg1 second argument of the event.
+	 * @return the source code line, or null if the event is not recognized.
+	 */
+	protected String getSourceLine(byte opcode, int arg0, int arg1) {
+		String code = getSourceCode(opcode, String.valueOf(arg0), String.valueOf(arg1));
+		return code == null ? null : getSourceTab() + code + "\n";
+	}
+
+	/**
+	 * Generate the statement executing an action, without indentation.
+	 *
+	 * @param opcode {@link EventOpcode} of the action.
+	 * @param arg0 source code of the first argument, e.g. a number or a variable name.
+	 * @param arg1 source code of the second argument. Ignored if the opcode takes only one argument.
+	 * @return the statement, or null if the opcode is not recognized.
+	 */
+	protected String getSourceCode(byte opcode, String arg0, String arg1) {
+		String action = EventOpcode.getAction(opcode);
+		String[] params = EventOpcode.getArgCount(opcode) == 1 ? new String[] {arg0} : new String[] {arg0, arg1};
+
+		if (EventOpcode.isMouse(opcode)) {
+			return mouseSourceCodeGenerator.getSourceCode(action, params);
+		} else if (EventOpcode.isKeyboard(opcode)) {
+			return keyboardSourceCodeGenerator.getSourceCode(action, params);
+		}
+		return null;
 	}
 
 	protected final boolean verify(String device, String action, int[] param) {
-		return Arrays.asList("mouse", "keyBoard").contains(device);
+		return Arrays.asList(EventOpcode.DEVICE_MOUSE, EventOpcode.DEVICE_KEYBOARD).contains(device);
 	}
 
 	public final void clear() {
@@ -103,8 +165,75 @@ public abstract class AbstractSourceGenerator {
 	 */
 	public abstract String getSourceTab();
 
-	public String getSource(float speedup) {
-		String mainSource = sourceScheduler.getSource(speedup);
+	/**
+	 * @param variable name of the loop variable.
+	 * @param count number of iterations.
+	 * @return the first line of a loop running the given number of times, without indentation.
+	 */
+	protected abstract String getLoopStart(String variable, int count);
+
+	/**
+	 * @return the line closing a loop without indentation, or null if the language does not need one.
+	 */
+	protected abstract String getLoopEnd();
+
+	/**
+	 * Generate source code interpreting events packed as data. The data is a list of strings, each holding
+	 * whole events as space separated integers. Each event is four integers: the sleep before the event
+	 * in milliseconds, the {@link EventOpcode}, then the two arguments.
+	 *
+	 * @param chunks the strings of packed events.
+	 * @return the indented source code declaring the data and interpreting it.
+	 */
+	protected abstract String getDataTableSource(List<String> chunks);
+
+	/**
+	 * @param chunks strings of packed events.
+	 * @param indent indentation of each string.
+	 * @return the string literals separated by commas, one per line.
+	 */
+	protected static String getDataLiterals(List<String> chunks, String indent) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < chunks.size(); i++) {
+			sb.append(indent).append('"').append(chunks.get(i)).append('"');
+			sb.append(i == chunks.size() - 1 ? "\n" : ",\n");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Generate the full source code for the tasks submitted to this generator.
+	 *
+	 * @param speedup speedup for the task.
+	 * @return the generated source code.
+	 */
+	public final String getSource(float speedup) {
+		return getSource(sourceScheduler.getEvents(), speedup);
+	}
+
+	/**
+	 * Generate the full source code for a series of events, ignoring tasks submitted to this generator.
+	 *
+	 * @param events events to generate source code for.
+	 * @param speedup speedup for the task.
+	 * @return the generated source code.
+	 */
+	public final String getSource(EventSource events, float speedup) {
+		boolean useDataTable = sourceMode == SOURCE_MODE_DATA_TABLE
+				|| (sourceMode == SOURCE_MODE_AUTO && events.getEventCount() > DATA_TABLE_THRESHOLD);
+		if (useDataTable) {
+			return completeSource(sourceScheduler.getDataTableSource(events, speedup));
+		}
+		return completeSource(sourceScheduler.getSource(events, speedup));
+	}
+
+	/**
+	 * Put the generated code into the template of the language.
+	 *
+	 * @param mainSource generated code for the events, or null if generation failed.
+	 * @return the complete source code.
+	 */
+	protected String completeSource(String mainSource) {
 		if (mainSource == null) {
 			LOGGER.severe("Unable to generate source...");
 			mainSource = "";
@@ -1,7 +1,10 @@
 package core.languageHandler.sourceGenerator;
 
+import java.util.List;
+
 import utilities.Function;
 import core.languageHandler.Language;
+import core.scheduler.EventOpcode;
 
 public class CSharpSourceGenerator extends InjectionSourceGenerator {
 
@@ -25,6 +28,37 @@ public class CSharpSourceGenerator extends InjectionSourceGenerator {
 		return FOUR_TAB;
 	}
 
+	@Override
+	protected String getLoopStart(String variable, int count) {
+		return "for (int " + variable + " = 0; " + variable + " < " + count + "; " + variable + "++) {";
+	}
+
+	@Override
+	protected String getLoopEnd() {
+		return "}";
+	}
+
+	@Override
+	protected String getDataTableSource(List<String> chunks) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(FOUR_TAB + "string[] packedEvents = {\n");
+		sb.append(getDataLiterals(chunks, FIVE_TAB));
+		sb.append(FOUR_TAB + "};\n");
+		sb.append(FOUR_TAB + "foreach (string packed in packedEvents) {\n");
+		sb.append(FIVE_TAB + "string[] values = packed.Split(' ');\n");
+		sb.append(FIVE_TAB + "for (int e = 0; e + 3 < values.Length; e += 4) {\n");
+		sb.append(SIX_TAB + "Thread.Sleep(int.Parse(values[e]));\n");
+		sb.append(SIX_TAB + "int arg0 = int.Parse(values[e + 2]), arg1 = int.Parse(values[e + 3]);\n");
+		sb.append(SIX_TAB + "switch (int.Parse(values[e + 1])) {\n");
+		for (byte opcode = 1; opcode < EventOpcode.COUNT; opcode++) {
+			sb.append(SIX_TAB + "case " + opcode + ": " + getSourceCode(opcode, "arg0", "arg1") + " break;\n");
+		}
+		sb.append(SIX_TAB + "}\n");
+		sb.append(FIVE_TAB + "}\n");
+		sb.append(FOUR_TAB + "}\n");
+		return sb.toString();
+	}
+
 	@Override
 	protected AbstractMouseSourceCodeGenerator buildMouseSourceCodeGenerator() {
 		return new CSharpMouseSourceCodeGenerator();
@@ -38,27 +72,27 @@ public class CSharpSourceGenerator extends InjectionSourceGenerator {
 	private class CSharpMouseSourceCodeGenerator extends AbstractMouseSourceCodeGenerator {
 
 		@Override
-		protected String move(int[] params) {
+		protected String move(String[] params) {
 			return "mouse.Move(" + params[0] + ", " + params[1] +");";
 		}
 
 		@Override
-		protected String moveBy(int[] params) {
+		protected String moveBy(String[] params) {
 			return "mouse.MoveBy(" + params[0] + ", " + params[1] +");";
 		}
 
 		@Override
-		protected String click(int[] params) {
+		protected String click(String[] params) {
 			return "mouse.Click(" + params[0] + ");";
 		}
 
 		@Override
-		protected String press(int[] params) {
+		protected String press(String[] params) {
 			return "mouse.Press(" + params[0] + ");";
 		}
 
 		@Override
-		protected String release(int[] params) {
+		protected String release(String[] params) {
 			return "mouse.Release(" + params[0] + ");";
 		}
 	}
@@ -66,17 +100,17 @@ public class CSharpSourceGenerator extends InjectionSourceGenerator {
 	private class CSharpKeyboardSourceCodeGenerator extends AbstractKeyboardSourceCodeGenerator {
 
 		@Override
-		protected String type(int[] params) {
+		protected String type(String[] params) {
 			return "key.DoType(" + params[0] + ");";
 		}
 
 		@Override
-		protected String press(int[] params) {
+		protected String press(String[] params) {
 			return "key.Press(" + params[0] + ");";
 		}
 
 		@Override
-		protected String release(int[] params) {
+		protected String release(String[] params) {
 			return "key.Release(" + params[0] + ");";
 		}
 
@@ -1,7 +1,10 @@
 package core.languageHandler.sourceGenerator;
 
+import java.util.List;
+
 import utilities.Function;
 import core.languageHandler.Language;
+import core.scheduler.EventOpcode;
 
 public class JavaSourceGenerator extends InjectionSourceGenerator {
 
@@ -25,6 +28,37 @@ public class JavaSourceGenerator extends InjectionSourceGenerator {
 		return TWO_TAB;
 	}
 
+	@Override
+	protected String getLoopStart(String variable, int count) {
+		return "for (int " + variable + " = 0; " + variable + " < " + count + "; " + variable + "++) {";
+	}
+
+	@Override
+	protected String getLoopEnd() {
+		return "}";
+	}
+
+	@Override
+	protected String getDataTableSource(List<String> chunks) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(TWO_TAB + "String[] packedEvents = {\n");
+		sb.append(getDataLiterals(chunks, THREE_TAB));
+		sb.append(TWO_TAB + "};\n");
+		sb.append(TWO_TAB + "for (String packed : packedEvents) {\n");
+		sb.append(THREE_TAB + "String[] values = packed.split(\" \");\n");
+		sb.append(THREE_TAB + "for (int e = 0; e + 3 < values.length; e += 4) {\n");
+		sb.append(FOUR_TAB + "c.blockingWait(Integer.parseInt(values[e]));\n");
+		sb.append(FOUR_TAB + "int arg0 = Integer.parseInt(values[e + 2]), arg1 = Integer.parseInt(values[e + 3]);\n");
+		sb.append(FOUR_TAB + "switch (Integer.parseInt(values[e + 1])) {\n");
+		for (byte opcode = 1; opcode < EventOpcode.COUNT; opcode++) {
+			sb.append(FOUR_TAB + "case " + opcode + ": " + getSourceCode(opcode, "arg0", "arg1") + " break;\n");
+		}
+		sb.append(FOUR_TAB + "}\n");
+		sb.append(THREE_TAB + "}\n");
+		sb.append(TWO_TAB + "}\n");
+		return sb.toString();
+	}
+
 	@Override
 	protected AbstractMouseSourceCodeGenerator buildMouseSourceCodeGenerator() {
 		return new JavaMouseSourceCodeGenerator();
@@ -38,27 +72,27 @@ public class JavaSourceGenerator extends InjectionSourceGenerator {
 	private class JavaMouseSourceCodeGenerator extends AbstractMouseSourceCodeGenerator {
 
 		@Override
-		protected String move(int[] params) {
+		protected String move(String[] params) {
 			return "c.mouse().move(" + params[0] + ", " + params[1] +");";
 		}
 
 		@Override
-		protected String moveBy(int[] params) {
+		protected String moveBy(String[] params) {
 			return "c.mouse().moveBy(" + params[0] + ", " + params[1] +");";
 		}
 
 		@Override
-		protected String click(int[] params) {
+		protected String click(String[] params) {
 			return "c.mouse().click(" + params[0] + ");";
 		}
 
 		@Override
-		protected String press(int[] params) {
+		protected String press(String[] params) {
 			return "c.mouse().press(" + params[0] + ");";
 		}
 
 		@Override
-		protected String release(int[] params) {
+		protected String release(String[] params) {
 			return "c.mouse().release(" + params[0] + ");";
 		}
 	}
@@ -66,17 +100,17 @@ public class JavaSourceGenerator extends InjectionSourceGenerator {
 	private class JavaKeyboardSourceCodeGenerator extends AbstractKeyboardSourceCodeGenerator {
 
 		@Override
-		protected String type(int[] params) {
+		protected String type(String[] params) {
 			return "c.keyBoard().type(" + params[0] + ");";
 		}
 
 		@Override
-		protected String press(int[] params) {
+		protected String press(String[] params) {
 			return "c.keyBoard().press(" + params[0] + ");";
 		}
 
 		@Override
-		protected String release(int[] params) {
+		protected String release(String[] params) {
 			return "c.keyBoard().release(" + params[0] + ");";
 		}
 	}
@@ -0,0 +1,105 @@
+package core.languageHandler.sourceGenerator;
+
+/**
+ * Finds consecutive repetitions of the same subsequence in a series of tokens, so that they can be generated
+ * as loops instead of being repeated. Each token identifies one generated statement, and equal statements
+ * must have equal tokens. Statements inside a loop are only visited for the first iteration.
+ *
+ * The tokens are scanned left to right. At each position, the period that saves the most tokens when repeated
+ * is chosen, then the scan continues after the last repetition. Loop bodies are scanned again for nested loops.
+ */
+class LoopDetector {
+
+	/**
+	 * Longest loop body that is searched for.
+	 */
+	private static final int MAX_PERIOD = 128;
+	/**
+	 * A loop is only generated if it replaces at least this many statements, since the loop itself
+	 * takes a few lines.
+	 */
+	private static final int MIN_SAVED_TOKENS = 3;
+
+	private final int[] tokens;
+	private final int maxDepth;
+	private final LoopVisitor visitor;
+
+	/**
+	 * Receives the statements and loops found, in order.
+	 */
+	interface LoopVisitor {
+		/**
+		 * @param index index of the token of the statement.
+		 * @param depth number of loops the statement is in.
+		 */
+		void visitStatement(int index, int depth);
+
+		/**
+		 * @param period number of tokens in the loop body. Iteration k of the body starts at k * period tokens
+		 * after the first one.
+		 * @param count number of iterations of the loop.
+		 * @param depth number of loops enclosing this loop.
+		 */
+		void visitLoopStart(int period, int count, int depth);
+
+		/**
+		 * @param depth number of loops enclosing this loop.
+		 */
+		void visitLoopEnd(int depth);
+	}
+
+	/**
+	 * @param tokens the token of each statement.
+	 * @param maxDepth maximum number of nested loops.
+	 * @param visitor visitor receiving the detected structure.
+	 */
+	LoopDetector(int[] tokens, int maxDepth, LoopVisitor visitor) {
+		this.tokens = tokens;
+		this.maxDepth = maxDepth;
+		this.visitor = visitor;
+	}
+
+	void detect() {
+		detect(0, tokens.length, 0);
+	}
+
+	private void detect(int from, int to, int depth) {
+		int i = from;
+		while (i < to) {
+			int bestPeriod = 0, bestCount = 0, bestSaved = MIN_SAVED_TOKENS - 1;
+
+			if (depth < maxDepth) {
+				int maxPeriod = Math.min(MAX_PERIOD, (to - i) / 2);
+				for (int period = 1; period <= maxPeriod; period++) {
+					if (tokens[i + period] != tokens[i]) {
+						continue;
+					}
+
+					int matched = 0;
+					while (i + period + matched < to && tokens[i + matched] == tokens[i + period + matched]) {
+						matched++;
+					}
+
+					int count = 1 + matched / period;
+					int saved = period * (count - 1);
+					if (saved > bestSaved) {
+						bestPeriod = period;
+						bestCount = count;
+						bestSaved = saved;
+					}
+				}
+			}
+
+			if (bestPeriod == 0) {
+				visitor.visitStatement(i, depth);
+				i++;
+				continue;
+			}
+
+			visitor.visitLoopStart(bestPeriod, bestCount, depth);
+			detect(i, i + bestPeriod, depth + 1);
+			visitor.visitLoopEnd(depth);
+			i += bestPeriod * bestCount;
+		}
+	}
+}
@@ -1,7 +1,10 @@
 package core.languageHandler.sourceGenerator;
 
+import java.util.List;
+
 import utilities.Function;
 import core.languageHandler.Language;
+import core.scheduler.EventOpcode;
 
 public class PythonSourceGenerator extends AbstractSourceGenerator {
 
@@ -25,6 +28,34 @@ public class PythonSourceGenerator extends AbstractSourceGenerator {
 		return TAB;
 	}
 
+	@Override
+	protected String getLoopStart(String variable, int count) {
+		return "for " + variable + " in range(" + count + "):";
+	}
+
+	@Override
+	protected String getLoopEnd() {
+		return null;
+	}
+
+	@Override
+	protected String getDataTableSource(List<String> chunks) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(TAB + "packed_events = [\n");
+		sb.append(getDataLiterals(chunks, TWO_TAB));
+		sb.append(TAB + "]\n");
+		sb.append(TAB + "for packed in packed_events:\n");
+		sb.append(TWO_TAB + "values = [int(value) for value in packed.split()]\n");
+		sb.append(TWO_TAB + "for e in range(0, len(values), 4):\n");
+		sb.append(THREE_TAB + "time.sleep(values[e] / 1000.0)\n");
+		sb.append(THREE_TAB + "opcode, arg0, arg1 = values[e + 1], values[e + 2], values[e + 3]\n");
+		for (byte opcode = 1; opcode < EventOpcode.COUNT; opcode++) {
+			sb.append(THREE_TAB + (opcode == 1 ? "if" : "elif") + " opcode == " + opcode + ":\n");
+			sb.append(FOUR_TAB + getSourceCode(opcode, "arg0", "arg1") + "\n");
+		}
+		return sb.toString();
+	}
+
 	@Override
 	protected AbstractMouseSourceCodeGenerator buildMouseSourceCodeGenerator() {
 		return new PythonMouseSourceCodeGenerator();
@@ -38,27 +69,27 @@ public class PythonSourceGenerator extends AbstractSourceGenerator {
 	private class PythonMouseSourceCodeGenerator extends AbstractMouseSourceCodeGenerator {
 
 		@Override
-		protected String move(int[] params) {
+		protected String move(String[] params) {
 			return "m.move(" + params[0] + ", " + params[1] +")";
 		}
 
 		@Override
-		protected String moveBy(int[] params) {
+		protected String moveBy(String[] params) {
 			return "m.move_by(" + params[0] + ", " + params[1] +")";
 		}
 
 		@Override
-		protected String click(int[] params) {
+		protected String click(String[] params) {
 			return "m.click(" + params[0] + ")";
 		}
 
 		@Override
-		protected String press(int[] params) {
+		protected String press(String[] params) {
 			return "m.press(" + params[0] + ")";
 		}
 
 		@Override
-		protected String release(int[] params) {
+		protected String release(String[] params) {
 			return "m.release(" + params[0] + ")";
 		}
 	}
@@ -66,17 +97,17 @@ public class PythonSourceGenerator extends AbstractSourceGenerator {
 	private class PythonKeyboardSourceCodeGenerator extends AbstractKeyboardSourceCodeGenerator {
 
 		@Override
-		protected String type(int[] params) {
+		protected String type(String[] params) {
 			return "k.type(" + params[0] + ")";
 		}
 
 		@Override
-		protected String press(int[] params) {
+		protected String press(String[] params) {
 			return "k.press(" + params[0] + ")";
 		}
 
 		@Override
-		protected String release(int[] params) {
+		protected String release(String[] params) {
 			return "k.release(" + params[0] + ")";
 		}
 	}
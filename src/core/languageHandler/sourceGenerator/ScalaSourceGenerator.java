@@ -1,7 +1,10 @@
 package core.languageHandler.sourceGenerator;
 
+import java.util.List;
+
 import utilities.Function;
 import core.languageHandler.Language;
+import core.scheduler.EventOpcode;
 
 public class ScalaSourceGenerator extends InjectionSourceGenerator {
 
@@ -25,6 +28,39 @@ public class ScalaSourceGenerator extends InjectionSourceGenerator {
 		return TAB;
 	}
 
+	@Override
+	protected String getLoopStart(String variable, int count) {
+		return "for (" + variable + " <- 1 to " + count + ") {";
+	}
+
+	@Override
+	protected String getLoopEnd() {
+		return "}";
+	}
+
+	@Override
+	protected String getDataTableSource(List<String> chunks) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(TAB + "val packedEvents = Array(\n");
+		sb.append(getDataLiterals(chunks, TWO_TAB));
+		sb.append(TAB + ")\n");
+		sb.append(TAB + "for (packed <- packedEvents) {\n");
+		sb.append(TWO_TAB + "val values = packed.split(\" \").map(_.toInt)\n");
+		sb.append(TWO_TAB + "for (e <- 0 until values.length by 4) {\n");
+		sb.append(THREE_TAB + "Thread.sleep(values(e))\n");
+		sb.append(THREE_TAB + "val arg0 = values(e + 2)\n");
+		sb.append(THREE_TAB + "val arg1 = values(e + 3)\n");
+		sb.append(THREE_TAB + "values(e + 1) match {\n");
+		for (byte opcode = 1; opcode < EventOpcode.COUNT; opcode++) {
+			sb.append(FOUR_TAB + "case " + opcode + " => " + getSourceCode(opcode, "arg0", "arg1") + "\n");
+		}
+		sb.append(FOUR_TAB + "case _ =>\n");
+		sb.append(THREE_TAB + "}\n");
+		sb.append(TWO_TAB + "}\n");
+		sb.append(TAB + "}\n");
+		return sb.toString();
+	}
+
 	@Override
 	protected AbstractMouseSourceCodeGenerator buildMouseSourceCodeGenerator() {
 		return new ScalaMouseSourceCodeGenerator();
@@ -38,27 +74,27 @@ public class ScalaSourceGenerator extends InjectionSourceGenerator {
 	private class ScalaMouseSourceCodeGenerator extends AbstractMouseSourceCodeGenerator {
 
 		@Override
-		protected String move(int[] params) {
+		protected String move(String[] params) {
 			return "m.move(" + params[0] + ", " + params[1] +")";
 		}
 
 		@Override
-		protected String moveBy(int[] params) {
+		protected String moveBy(String[] params) {
 			return "m.moveBy(" + params[0] + ", " + params[1] +")";
 		}
 
 		@Override
-		protected String click(int[] params) {
+		protected String click(String[] params) {
 			return "m.click(" + params[0] + ")";
 		}
 
 		@Override
-		protected String press(int[] params) {
+		protected String press(String[] params) {
 			return "m.press(" + params[0] + ")";
 		}
 
 		@Override
-		protected String release(int[] params) {
+		protected String release(String[] params) {
 			return "m.release(" + params[0] + ")";
 		}
 	}
@@ -66,17 +102,17 @@ public class ScalaSourceGenerator extends InjectionSourceGenerator {
 	private class ScalaKeyboardSourceCodeGenerator extends AbstractKeyboardSourceCodeGenerator {
 
 		@Override
-		protected String type(int[] params) {
+		protected String type(String[] params) {
 			return "k.typeKeys(" + params[0] + ")";
 		}
 
 		@Override
-		protected String press(int[] params) {
+		protected String press(String[] params) {
 			return "k.press(" + params[0] + ")";
 		}
 
 		@Override
-		protected String release(int[] params) {
+		protected String release(String[] params) {
 			return "k.release(" + params[0] + ")";
 		}
 	}
@@ -1,53 +1,224 @@
 package core.languageHandler.sourceGenerator;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import utilities.Function;
 import core.scheduler.AbstractScheduler;
-import core.scheduler.SchedulingData;
+import core.scheduler.EventCursor;
+import core.scheduler.EventOpcode;
+import core.scheduler.EventSource;
 
-class TaskSourceScheduler extends AbstractScheduler<String> {
+class TaskSourceScheduler extends AbstractScheduler {
 
 	private static final Logger LOGGER = Logger.getLogger(TaskSourceScheduler.class.getName());
 
+	/**
+	 * Names of the loop variables by nesting depth. This also limits how deeply loops are nested.
+	 */
+	private static final String[] LOOP_VARIABLES = {"i", "j", "n"};
+	/**
+	 * Approximate length of each string literal of packed events. String constants in a class file
+	 * are limited to 65535 bytes.
+	 */
+	private static final int DATA_CHUNK_LENGTH = 16000;
+	/**
+	 * Sleeps are rounded to a multiple of this many milliseconds when comparing statements, so that repetitions
+	 * recorded with slightly different timing are still generated as loops.
+	 */
+	private static final long SLEEP_TOLERANCE_MS = 50;
+
+	private final AbstractSourceGenerator generator;
 	private Function<Long, String> getSleepSource;
 
-	protected TaskSourceScheduler() {
+	protected TaskSourceScheduler(AbstractSourceGenerator generator) {
 		super();
+		this.generator = generator;
 	}
 
 	/**
-	 * Generate the source code from scheduling data.
+	 * @return the events submitted to this scheduler.
+	 */
+	protected EventSource getEvents() {
+		return tasks;
+	}
+
+	/**
+	 * Generate the source code from a series of events. Consecutive repetitions of the same statements
+	 * are generated as loops. Statements are the same if they have the same action and about the same sleep,
+	 * and each statement in a loop sleeps for the mean of its sleeps over all iterations.
 	 * Note that the speedup only changes the amount of delay between scheduled actions.
 	 *
+	 * @param events events to generate source code for.
 	 * @param speedup speedup for the task.
 	 * @return the generated source code as a string.
 	 */
-	protected String getSource(float speedup) {
+	protected String getSource(EventSource events, float speedup) {
 		if (!isLegalAddTask()) {
 			return null;
 		}
 
-		StringBuffer output = new StringBuffer();
+		// Each event becomes one statement (its sleep and its action). Statements with the same action and
+		// the same rounded sleep get equal tokens, so that repeated statements can be generated as loops.
+		final List<String> lines = new ArrayList<>();
+		Map<String, Integer> statementTokens = new HashMap<>();
+		int capacity = (int) Math.min(events.getEventCount(), Integer.MAX_VALUE);
+		int[] tokens = new int[capacity];
+		long[] sleeps = new long[capacity];
+		int tokenCount = 0;
 
 		long time = 0;
-		for (SchedulingData<String> t : tasks) {
-			long currentTime = t.getTime();
+		for (EventCursor event = events.cursor(); event.next();) {
+			long currentTime = event.getTime();
 
 			if (currentTime < time) {
 				LOGGER.severe("Something went really bad");
 				System.exit(1);
 			}
 
-			output.append(getSleepSource.apply((long) ((currentTime - time) / speedup)));
+			String line = generator.getSourceLine(event.getOpcode(), event.getArg(0), event.getArg(1));
+			if (line == null) {
+				LOGGER.warning("Unable to generate source for event at time " + currentTime);
+				continue;
+			}
 
+			long sleep = (long) ((currentTime - time) / speedup);
 			time = currentTime;
-			output.append(t.getData());
+
+			String statement = (sleep + SLEEP_TOLERANCE_MS / 2) / SLEEP_TOLERANCE_MS + " " + line;
+			Integer token = statementTokens.get(statement);
+			if (token == null) {
+				token = lines.size();
+				statementTokens.put(statement, token);
+				lines.add(line);
+			}
+			if (tokenCount == tokens.length) {
+				tokens = Arrays.copyOf(tokens, Math.max(16, tokenCount * 2));
+				sleeps = Arrays.copyOf(sleeps, tokens.length);
+			}
+			sleeps[tokenCount] = sleep;
+			tokens[tokenCount++] = token;
 		}
 
+		final int[] statementOrder = Arrays.copyOf(tokens, tokenCount);
+		final long[] statementSleeps = sleeps;
+		final int[] loopPeriods = new int[LOOP_VARIABLES.length];
+		final int[] loopCounts = new int[LOOP_VARIABLES.length];
+		final StringBuffer output = new StringBuffer();
+		new LoopDetector(statementOrder, LOOP_VARIABLES.length, new LoopDetector.LoopVisitor() {
+			@Override
+			public void visitStatement(int index, int depth) {
+				long iterations = 1;
+				for (int i = 0; i < depth; i++) {
+					iterations *= loopCounts[i];
+				}
+				long sleep = Math.round((double) sumSleeps(statementSleeps, index, depth, loopPeriods, loopCounts) / iterations);
+				appendIndented(output, getSleepSource.apply(sleep) + lines.get(statementOrder[index]), depth);
+			}
+
+			@Override
+			public void visitLoopStart(int period, int count, int depth) {
+				loopPeriods[depth] = period;
+				loopCounts[depth] = count;
+				appendIndented(output, generator.getSourceTab() + generator.getLoopStart(LOOP_VARIABLES[depth], count) + "\n", depth);
+			}
+
+			@Override
+			public void visitLoopEnd(int depth) {
+				String loopEnd = generator.getLoopEnd();
+				if (loopEnd != null) {
+					appendIndented(output, generator.getSourceTab() + loopEnd + "\n", depth);
+				}
+			}
+		}).detect();
+
 		return output.toString();
 	}
 
+	/**
+	 * Generate source code interpreting the events packed as data, see {@link AbstractSourceGenerator#getDataTableSource(List)}.
+	 * Note that the speedup only changes the amount of delay between scheduled actions.
+	 *
+	 * @param events events to generate source code for.
+	 * @param speedup speedup for the task.
+	 * @return the generated source code as a string.
+	 */
+	protected String getDataTableSource(EventSource events, float speedup) {
+		List<String> chunks = new ArrayList<>();
+		StringBuilder chunk = new StringBuilder();
+
+		long time = 0;
+		for (EventCursor event = events.cursor(); event.next();) {
+			long currentTime = event.getTime();
+			byte opcode = event.getOpcode();
+			if (opcode <= EventOpcode.UNKNOWN || opcode >= EventOpcode.COUNT) {
+				LOGGER.warning("Unable to generate source for event at time " + currentTime);
+				continue;
+			}
+
+			if (chunk.length() > 0) {
+				chunk.append(' ');
+			}
+			chunk.append((long) ((currentTime - time) / speedup)).append(' ').append(opcode)
+				.append(' ').append(event.getArg(0)).append(' ').append(event.getArg(1));
+			time = currentTime;
+
+			if (chunk.length() >= DATA_CHUNK_LENGTH) {
+				chunks.add(chunk.toString());
+				chunk.setLength(0);
+			}
+		}
+		if (chunk.length() > 0) {
+			chunks.add(chunk.toString());
+		}
+
+		return generator.getDataTableSource(chunks);
+	}
+
+	/**
+	 * Sum the sleeps of a statement over all iterations of its enclosing loops.
+	 *
+	 * @param index index of the statement in the first iteration of every enclosing loop.
+	 * @param depth number of enclosing loops still to iterate over.
+	 */
+	private static long sumSleeps(long[] sleeps, int index, int depth, int[] loopPeriods, int[] loopCounts) {
+		if (depth == 0) {
+			return sleeps[index];
+		}
+
+		long sum = 0;
+		for (int k = 0; k < loopCounts[depth - 1]; k++) {
+			sum += sumSleeps(sleeps, index + k * loopPeriods[depth - 1], depth - 1, loopPeriods, loopCounts);
+		}
+		return sum;
+	}
+
+	/**
+	 * Append source code, indenting each of its lines once more per enclosing loop.
+	 */
+	private static void appendIndented(StringBuffer output, String source, int depth) {
+		if (depth == 0) {
+			output.append(source);
+			return;
+		}
+
+		int lineStart = 0;
+		while (lineStart < source.length()) {
+			int lineEnd = source.indexOf('\n', lineStart);
+			lineEnd = lineEnd == -1 ? source.length() : lineEnd + 1;
+
+			for (int i = 0; i < depth; i++) {
+				output.append(AbstractSourceGenerator.TAB);
+			}
+			output.append(source, lineStart, lineEnd);
+			lineStart = lineEnd;
+		}
+	}
+
 	@Override
 	protected boolean isLegalAddTask() {
 		if (getSleepSource == null) {
@@ -1,11 +1,13 @@
 package core.recorder;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
-import org.jnativehook.keyboard.NativeKeyEvent;
-import org.jnativehook.mouse.NativeMouseEvent;
-
-import core.controller.Core;
 import core.keyChain.managers.GlobalEventsManager;
 import core.languageHandler.Language;
 import core.languageHandler.sourceGenerator.AbstractSourceGenerator;
@@ -13,35 +15,73 @@ import core.languageHandler.sourceGenerator.CSharpSourceGenerator;
 import core.languageHandler.sourceGenerator.JavaSourceGenerator;
 import core.languageHandler.sourceGenerator.PythonSourceGenerator;
 import core.languageHandler.sourceGenerator.ScalaSourceGenerator;
-import core.scheduler.SchedulingData;
-import globalListener.GlobalKeyListener;
-import globalListener.GlobalMouseListener;
-import utilities.NativeHookCodeConverter;
+import core.recorder.filter.EventFilterPipeline;
+import core.scheduler.EventCursor;
+import core.scheduler.EventOpcode;
+import core.scheduler.EventRange;
+import core.scheduler.EventRingBuffer;
+import core.scheduler.EventSink;
+import core.scheduler.SeekableEventSource;
+import core.scheduler.ReplayProfile;
+import globalListener.NativeInputEvent;
+import globalListener.NativeInputEventBus;
 import utilities.Function;
+import utilities.LatencyHistogram;
 
 public class Recorder {
 
+	private static final Logger LOGGER = Logger.getLogger(Recorder.class.getName());
+	private static final String RECORDING_FILE_PREFIX = "recording";
+	public static final String RECORDING_FILE_EXTENSION = ".rec";
+	private static final int EVENT_BUFFER_CAPACITY = 1 << 16;
+	private static final long DRAIN_INTERVAL_NANOS = 1000000L;
+	private static final long NANOS_PER_MILLI = 1000000L;
+
 	public static final int MODE_NORMAL = 0;
 	public static final int MODE_MOUSE_CLICK_ONLY = 1;
 
+	/**
+	 * Sleep for the time between consecutive events. Timing errors accumulate over the replay.
+	 */
+	public static final int REPLAY_MODE_SLEEP = 0;
+	/**
+	 * Execute each event at an absolute deadline from the start of the replay, so that timing errors do not accumulate.
+	 */
+	public static final int REPLAY_MODE_DEADLINE = 1;
+
 	private static final float NO_SPEEDUP = 1f;
 	private float speedup;
 
-	private long startTime;
+	private long startNanoTime;
 	private int mode;
 
 	private TaskScheduler taskScheduler;
+	private File recordingFile;
+	private RecordingWriter recordingWriter;
+	private RecordingReader recordingReader; // Reads recordingFile once recording stops.
+
+	private final EventRingBuffer eventBuffer;
+	private final EventSink eventSink;
+	private final EventSink recordingSink;
+	private volatile EventFilterPipeline filterPipeline;
+	private Thread drainer;
+	private volatile boolean isRecording;
+	private long droppedEventCount;
 
-	private GlobalKeyListener keyListener;
-	private GlobalMouseListener mouseListener;
+	private final Function<NativeInputEvent, Boolean> inputSubscriber;
 
 	private HashMap<Language, AbstractSourceGenerator> sourceGenerators;
+	/**
+	 * Source code generated for the current recording, by language.
+	 * This is invalidated whenever the recording, the speedup or the replay profile changes.
+	 */
+	private final Map<Language, String> generatedSources;
 
 	public Recorder(final GlobalEventsManager globalKeys) {
-		final Core controller = Core.getInstance();
 		taskScheduler = new TaskScheduler();
 
 		speedup = NO_SPEEDUP;
+		generatedSources = new HashMap<>();
 
 		sourceGenerators = new HashMap<>();
 		sourceGenerators.put(Language.JAVA, new JavaSourceGenerator());
@@ -49,124 +89,75 @@ public class Recorder {
 		sourceGenerators.put(Language.CSHARP, new CSharpSourceGenerator());
 		sourceGenerators.put(Language.SCALA, new ScalaSourceGenerator());
 
-		/*************************************************************************************************/
-		keyListener = new GlobalKeyListener();
-		keyListener.setKeyPressed(new Function<NativeKeyEvent, Boolean>() {
+		recordingSink = new EventSink() {
 			@Override
-			public Boolean apply(final NativeKeyEvent r) {
-				final int code = NativeHookCodeConverter.getKeyEventCode(r.getKeyCode()).getKey();
-				final long time = System.currentTimeMillis() - startTime;
-				taskScheduler.addTask(new SchedulingData<Runnable>(time, new Runnable(){
-					@Override
-					public void run() {
-						controller.keyBoard().press(code);
-					}
-				}));
-
-				for (AbstractSourceGenerator generator : sourceGenerators.values()) {
-					generator.submitTask(time, "keyBoard", "press", new int[]{code});
-				}
-				return true;
+			public void accept(long time, byte opcode, int arg0, int arg1) {
+				recordEvent(time, opcode, arg0, arg1);
 			}
-		});
+		};
+		setFilterPipeline(new EventFilterPipeline());
 
-		keyListener.setKeyReleased(new Function<NativeKeyEvent, Boolean>() {
+		eventBuffer = new EventRingBuffer(EVENT_BUFFER_CAPACITY);
+		eventSink = new EventSink() {
 			@Override
-			public Boolean apply(final NativeKeyEvent r) {
-				final int code = NativeHookCodeConverter.getKeyEventCode(r.getKeyCode()).getKey();
-				final long time = System.currentTimeMillis() - startTime;
-				taskScheduler.addTask(new SchedulingData<Runnable>(time, new Runnable() {
-					@Override
-					public void run() {
-						controller.keyBoard().release(code);
-					}
-				}));
-
-				for (AbstractSourceGenerator generator : sourceGenerators.values()) {
-					generator.submitTask(time, "keyBoard", "release", new int[]{code});
-				}
-				return true;
+			public void accept(long time, byte opcode, int arg0, int arg1) {
+				consumeEvent(time, opcode, arg0, arg1);
 			}
-		});
+		};
 
-		/*************************************************************************************************/
-		mouseListener = new GlobalMouseListener();
-		mouseListener.setMouseReleased(new Function<NativeMouseEvent, Boolean>() {
+		// This runs on the native hook dispatch thread, which is the only producer of eventBuffer.
+		inputSubscriber = new Function<NativeInputEvent, Boolean>() {
 			@Override
-			public Boolean apply(final NativeMouseEvent r) {
-				final int code = NativeHookCodeConverter.getMouseButtonCode(r.getButton(), false);
-				final long time = System.currentTimeMillis() - startTime;
-				taskScheduler.addTask(new SchedulingData<Runnable>(time, new Runnable(){
-					@Override
-					public void run() {
-						if (mode == MODE_MOUSE_CLICK_ONLY) {
-							controller.mouse().move(r.getX(), r.getY());
-						}
-						controller.mouse().release(code);
-					}
-				}));
-
-
-				for (AbstractSourceGenerator generator : sourceGenerators.values()) {
+			public Boolean apply(NativeInputEvent e) {
+				// Events which happened just before recording started are recorded at the start.
+				long time = Math.max(e.getTime() - startNanoTime, 0) / NANOS_PER_MILLI;
+				switch (e.getType()) {
+				case NativeInputEvent.KEY_PRESSED:
+					eventBuffer.offer(time, EventOpcode.KEY_PRESS, e.getKey(), 0);
+					break;
+				case NativeInputEvent.KEY_RELEASED:
+					eventBuffer.offer(time, EventOpcode.KEY_RELEASE, e.getKey(), 0);
+					break;
+				case NativeInputEvent.MOUSE_PRESSED:
 					if (mode == MODE_MOUSE_CLICK_ONLY) {
-						generator.submitTask(time, "mouse", "move", new int[]{r.getX(), r.getY()});
-						generator.submitTask(time + 5, "mouse", "release", new int[]{code});
-					} else {
-						generator.submitTask(time, "mouse", "release", new int[]{code});
-					}
-				}
-				return true;
-			}
-		});
-
-		mouseListener.setMousePressed(new Function<NativeMouseEvent, Boolean>() {
-			@Override
-			public Boolean apply(final NativeMouseEvent r) {
-				final int code = NativeHookCodeConverter.getMouseButtonCode(r.getModifiers(), true);
-				final long time = System.currentTimeMillis() - startTime;
-				taskScheduler.addTask(new SchedulingData<Runnable>(time, new Runnable(){
-					@Override
-					public void run() {
-						if (mode == MODE_MOUSE_CLICK_ONLY) {
-							controller.mouse().move(r.getX(), r.getY());
-						}
-						controller.mouse().press(code);
+						eventBuffer.offer(time, EventOpcode.MOUSE_MOVE, e.getX(), e.getY());
 					}
-				}));
-
-				for (AbstractSourceGenerator generator : sourceGenerators.values()) {
+					eventBuffer.offer(time, EventOpcode.MOUSE_PRESS, e.getButton(), 0);
+					break;
+				case NativeInputEvent.MOUSE_RELEASED:
 					if (mode == MODE_MOUSE_CLICK_ONLY) {
-						generator.submitTask(time, "mouse", "move", new int[]{r.getX(), r.getY()});
-						generator.submitTask(time + 5, "mouse", "press", new int[]{code});
-					} else {
-						generator.submitTask(time, "mouse", "press", new int[]{code});
+						eventBuffer.offer(time, EventOpcode.MOUSE_MOVE, e.getX(), e.getY());
 					}
+					eventBuffer.offer(time, EventOpcode.MOUSE_RELEASE, e.getButton(), 0);
+					break;
+				case NativeInputEvent.MOUSE_MOVED:
+					eventBuffer.offer(time, EventOpcode.MOUSE_MOVE, e.getX(), e.getY());
+					break;
+				default:
+					break;
 				}
 				return true;
 			}
-		});
-
-		mouseListener.setMouseMoved(new Function<NativeMouseEvent, Boolean>() {
-			@Override
-			public Boolean apply(final NativeMouseEvent r) {
-				if (mode == MODE_MOUSE_CLICK_ONLY) {
-					return true;
-				}
+		};
+	}
 
-				final long time = System.currentTimeMillis() - startTime;
-				taskScheduler.addTask(new SchedulingData<Runnable>(time, new Runnable(){
-					@Override
-					public void run() {
-						controller.mouse().move(r.getX(), r.getY());
-					}
-				}));
+	/**
+	 * Record an event drained from the event buffer. This runs on the draining thread.
+	 */
+	private void consumeEvent(long time, byte opcode, int arg0, int arg1) {
+		filterPipeline.accept(time, opcode, arg0, arg1);
+	}
 
-				for (AbstractSourceGenerator generator : sourceGenerators.values()) {
-					generator.submitTask(time, "mouse", "move", new int[]{r.getX(), r.getY()});
-				}
-				return true;
+	/**
+	 * Drain the event buffer until recording stops, then drain whatever is left.
+	 */
+	private void drainEvents() {
+		while (isRecording) {
+			if (eventBuffer.drain(eventSink) == 0) {
+				LockSupport.parkNanos(DRAIN_INTERVAL_NANOS);
 			}
-		});
+		}
+		eventBuffer.drain(eventSink);
 	}
 
 	/**
@@ -176,22 +167,251 @@ public class Recorder {
 	 * @param speedup
 	 */
 	public void setSpeedup(float speedup) {
+		if (this.speedup != speedup) {
+			invalidateGeneratedSources();
+		}
 		this.speedup = speedup;
 	}
 
+	/**
+	 * Set how source code is generated for recordings.
+	 *
+	 * @param sourceMode one of {@link AbstractSourceGenerator#SOURCE_MODE_STATEMENTS},
+	 * {@link AbstractSourceGenerator#SOURCE_MODE_DATA_TABLE} or {@link AbstractSourceGenerator#SOURCE_MODE_AUTO}.
+	 */
+	public void setSourceMode(int sourceMode) {
+		for (AbstractSourceGenerator generator : sourceGenerators.values()) {
+			generator.setSourceMode(sourceMode);
+		}
+		invalidateGeneratedSources();
+	}
+
+	/**
+	 * Set the profile changing the time between events in play back and source code generation.
+	 * This should be set before replaying.
+	 *
+	 * @param profile the profile to apply, or null to replay events as recorded.
+	 */
+	public void setReplayProfile(ReplayProfile profile) {
+		if (taskScheduler.setReplayProfile(profile)) {
+			invalidateGeneratedSources();
+		}
+	}
+
+	/**
+	 * Set the filters applied to events as they are recorded. This should be set before recording.
+	 *
+	 * @param filterPipeline the filters to apply. Use an empty pipeline to record all events unchanged.
+	 */
+	public void setFilterPipeline(EventFilterPipeline filterPipeline) {
+		filterPipeline.setOutput(recordingSink);
+		this.filterPipeline = filterPipeline;
+	}
+
+	public EventFilterPipeline getFilterPipeline() {
+		return filterPipeline;
+	}
+
 	public void setRecordMode(int mode) {
 		this.mode = mode;
 	}
 
+	/**
+	 * Set how the replay waits between events. This should be set before replaying.
+	 *
+	 * @param replayMode either {@link #REPLAY_MODE_SLEEP} or {@link #REPLAY_MODE_DEADLINE}.
+	 */
+	public void setReplayMode(int replayMode) {
+		taskScheduler.setReplayMode(replayMode);
+	}
+
+	/**
+	 * @return histogram of how late each event was executed compared to its scheduled time
+	 * during the last replay.
+	 */
+	public LatencyHistogram getReplayLateness() {
+		return taskScheduler.getLateness();
+	}
+
+	/**
+	 * Start recording. Events are streamed to a recording file as they arrive.
+	 * If the recording file cannot be created, events are kept in memory instead.
+	 */
 	public void record() {
-		this.startTime = System.currentTimeMillis();
-		this.keyListener.startListening();
-		this.mouseListener.startListening();
+		invalidateGeneratedSources();
+		openRecordingFile();
+		this.startNanoTime = System.nanoTime();
+		this.droppedEventCount = eventBuffer.getDroppedCount();
+		filterPipeline.reset();
+
+		isRecording = true;
+		drainer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				drainEvents();
+			}
+		}, "Recorder event drainer");
+		drainer.start();
+
+		// Mouse moves are not recorded in click only mode, so do not listen to them at all.
+		int eventTypes = NativeInputEvent.KEY_PRESSED | NativeInputEvent.KEY_RELEASED | NativeInputEvent.ALL_MOUSE;
+		if (mode == MODE_MOUSE_CLICK_ONLY) {
+			eventTypes &= ~NativeInputEvent.MOUSE_MOVED;
+		}
+		NativeInputEventBus.getInstance().subscribe(inputSubscriber, eventTypes, NativeInputEventBus.PRIORITY_NORMAL);
 	}
 
 	public void stopRecord() {
-		this.keyListener.stopListening();
-		this.mouseListener.stopListening();
+		NativeInputEventBus.getInstance().unsubscribe(inputSubscriber);
+
+		isRecording = false;
+		if (drainer != null) {
+			LockSupport.unpark(drainer);
+			try {
+				drainer.join();
+			} catch (InterruptedException e) {
+				LOGGER.warning("Interrupted while waiting for recorded events to be drained.");
+			}
+			drainer = null;
+		}
+
+		long dropped = eventBuffer.getDroppedCount() - droppedEventCount;
+		if (dropped > 0) {
+			LOGGER.warning("Dropped " + dropped + " events because the recorder fell behind.");
+		}
+		filterPipeline.flush();
+		closeRecordingFile();
+		invalidateGeneratedSources();
+	}
+
+	/**
+	 * @return the file containing the last recording, or null if the last recording is only kept in memory.
+	 */
+	public File getRecordingFile() {
+		return recordingFile;
+	}
+
+	/**
+	 * @return the events of the current recording. These should not be read while recording,
+	 * and must not be read after the recording is replaced or cleared.
+	 */
+	public SeekableEventSource getRecording() {
+		return taskScheduler.getEvents();
+	}
+
+	/**
+	 * Replace the current recording with previously recorded events, for example from a {@link RecordingLibrary}.
+	 *
+	 * @param events events to replay.
+	 * @return if the events were loaded. Events cannot be loaded while recording or replaying.
+	 */
+	public boolean loadRecording(SeekableEventSource events) {
+		if (isRecording) {
+			LOGGER.info("Stop recording first before loading a recording");
+			return false;
+		}
+		if (!taskScheduler.clearTasks() || !taskScheduler.setRecording(events)) {
+			return false;
+		}
+
+		deleteRecordingFile();
+		invalidateGeneratedSources();
+		return true;
+	}
+
+	private void recordEvent(long time, byte opcode, int arg0, int arg1) {
+		RecordingWriter writer = recordingWriter;
+		if (writer == null) {
+			taskScheduler.addTask(time, opcode, arg0, arg1);
+			return;
+		}
+
+		try {
+			writer.write(time, opcode, arg0, arg1);
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Unable to write to recording file " + recordingFile + ". Recording in memory instead.", e);
+			recoverRecordingFile(writer);
+			taskScheduler.addTask(time, opcode, arg0, arg1);
+		}
+	}
+
+	/**
+	 * Stop writing to the recording file after a write failed, and move the events already written
+	 * to the in memory timeline so that recording can go on in memory. This runs on the draining thread.
+	 */
+	private void recoverRecordingFile(RecordingWriter writer) {
+		recordingWriter = null;
+		long written = writer.getEventCount();
+		try {
+			writer.close();
+			try (RecordingReader reader = new RecordingReader(recordingFile)) {
+				for (EventCursor cursor = reader.cursor(); cursor.next();) {
+					taskScheduler.addTask(cursor.getTime(), cursor.getOpcode(), cursor.getArg(0), cursor.getArg(1));
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			LOGGER.log(Level.WARNING, "Unable to recover the " + written + " events written to recording file "
+					+ recordingFile + ". Only later events are recorded.", e);
+			taskScheduler.clearTasks();
+		}
+		deleteRecordingFile();
+	}
+
+	private void openRecordingFile() {
+		if (taskScheduler.setRecording(null)) {
+			deleteRecordingFile();
+		} else {
+			// The previous recording is still replaying, so it cannot be unmapped yet. Its file is deleted on exit.
+			recordingReader = null;
+			recordingFile = null;
+		}
+
+		try {
+			recordingFile = File.createTempFile(RECORDING_FILE_PREFIX, RECORDING_FILE_EXTENSION);
+			recordingFile.deleteOnExit();
+			recordingWriter = new RecordingWriter(recordingFile);
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Unable to create recording file. Recording in memory instead.", e);
+			deleteRecordingFile();
+			recordingWriter = null;
+		}
+	}
+
+	private void closeRecordingFile() {
+		RecordingWriter writer = recordingWriter;
+		recordingWriter = null;
+		if (writer == null) {
+			return;
+		}
+
+		try {
+			writer.close();
+			if (writer.getEventCount() > 0) {
+				recordingReader = new RecordingReader(recordingFile);
+				taskScheduler.setRecording(recordingReader);
+			}
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Unable to load recording file " + recordingFile, e);
+		}
+	}
+
+	/**
+	 * Unmap and delete the file of the last recording. This must only be called once the scheduler
+	 * no longer uses the recording.
+	 */
+	private void deleteRecordingFile() {
+		if (recordingReader != null) {
+			synchronized (generatedSources) { // Source generation may be reading the recording.
+				recordingReader.close();
+			}
+			recordingReader = null;
+		}
+		if (recordingFile != null) {
+			if (!recordingFile.delete()) {
+				LOGGER.fine("Unable to delete recording file " + recordingFile + ". It will be deleted on exit.");
+			}
+			recordingFile = null;
+		}
 	}
 
 	public void replay() {
@@ -199,11 +419,47 @@ public class Recorder {
 	}
 
 	public void replay(long count, long delay, Function<Void, Void> callBack, long callBackDelay, boolean blocking) {
-		long time = taskScheduler.runTasks(count, delay, speedup, callBack, callBackDelay);
+		boolean started = taskScheduler.runTasks(count, delay, speedup, callBack, callBackDelay);
+		waitForReplay(started, blocking);
+	}
+
+	/**
+	 * Replay only the events recorded within a time interval. The replay starts without walking through
+	 * the earlier events, and the time between the start of the interval and its first event is kept.
+	 *
+	 * @param from start of the interval in milliseconds since the start of the recording, inclusive.
+	 * @param to end of the interval in milliseconds since the start of the recording, exclusive.
+	 * Use {@link Long#MAX_VALUE} to replay until the end of the recording.
+	 */
+	public void replayRange(long from, long to, long count, long delay, Function<Void, Void> callBack, long callBackDelay, boolean blocking) {
+		EventRange range = EventRange.ofTime(taskScheduler.getEvents(), from, to);
+		boolean started = taskScheduler.runTasks(range, count, delay, speedup, callBack, callBackDelay);
+		waitForReplay(started, blocking);
+	}
 
-		if (blocking && time > 0) {
+	/**
+	 * Resume a replay from an event, for example after a replay failed part way through.
+	 * The first replayed event is executed immediately.
+	 *
+	 * @param eventIndex index of the first event to replay.
+	 */
+	public void replayFrom(long eventIndex, Function<Void, Void> callBack, long callBackDelay, boolean blocking) {
+		EventRange range = EventRange.ofEvents(taskScheduler.getEvents(), eventIndex, Long.MAX_VALUE);
+		boolean started = taskScheduler.runTasks(range, 1, 0, speedup, callBack, callBackDelay);
+		waitForReplay(started, blocking);
+	}
+
+	/**
+	 * @return number of recorded events, which is one more than the largest index accepted by {@link #replayFrom}.
+	 */
+	public long getEventCount() {
+		return taskScheduler.getEvents().getEventCount();
+	}
+
+	private void waitForReplay(boolean started, boolean blocking) {
+		if (blocking && started) {
 			try {
-				Thread.sleep(time);
+				taskScheduler.waitForReplay();
 			} catch (InterruptedException e) {
 				e.printStackTrace();
 			}
@@ -215,18 +471,38 @@ public class Recorder {
 	}
 
 	public void clear() {
-		for (AbstractSourceGenerator generator : sourceGenerators.values()) {
-			generator.clear();
+		if (taskScheduler.clearTasks()) {
+			deleteRecordingFile();
 		}
-		taskScheduler.clearTasks();
+		invalidateGeneratedSources();
 	}
 
+	/**
+	 * Generate source code for the current recording. The source code is only generated the first time
+	 * it is requested for a language, and is reused until the recording, the speedup or the replay profile changes.
+	 *
+	 * @param language language to generate source code in.
+	 * @return the generated source code, or null if there is no generator for the language.
+	 */
 	public String getGeneratedCode(Language language) {
 		AbstractSourceGenerator generator = sourceGenerators.get(language);
-		if (generator != null) {
-			return generator.getSource(speedup);
-		} else { // Return null to indicate generator does not exist
+		if (generator == null) { // Return null to indicate generator does not exist
 			return null;
 		}
+
+		synchronized (generatedSources) {
+			String source = generatedSources.get(language);
+			if (source == null) {
+				source = generator.getSource(taskScheduler.getProfiledEvents(speedup), speedup);
+				generatedSources.put(language, source);
+			}
+			return source;
+		}
+	}
+
+	private void invalidateGeneratedSources() {
+		synchronized (generatedSources) {
+			generatedSources.clear();
+		}
 	}
 }
@@ -0,0 +1,198 @@
+package core.recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import core.scheduler.EventCursor;
+import core.scheduler.EventSource;
+import core.scheduler.SeekableEventSource;
+import core.scheduler.Timeline;
+import utilities.FileUtility;
+
+/**
+ * A library of named recordings persisted on disk, one recording file per name.
+ *
+ * Recordings are decoded into an in memory {@link Timeline} when they are requested, so that replaying them
+ * does not touch the disk. Decoded recordings are kept in a least recently used cache bounded by the total
+ * number of events, so many large recordings can be kept in the library without all of them being in memory.
+ */
+public class RecordingLibrary {
+
+	private static final Logger LOGGER = Logger.getLogger(RecordingLibrary.class.getName());
+
+	private static final String DEFAULT_DIRECTORY = FileUtility.joinPath("data", "recordings");
+	private static final long DEFAULT_MAX_CACHED_EVENTS = 1 << 21;
+	private static final Pattern VALID_NAME = Pattern.compile("[\\w\\- ]{1,100}");
+
+	private final File directory;
+	private final long maxCachedEvents;
+	private final LinkedHashMap<String, Timeline> cache;
+	private long cachedEvents;
+
+	public RecordingLibrary() {
+		this(new File(DEFAULT_DIRECTORY), DEFAULT_MAX_CACHED_EVENTS);
+	}
+
+	/**
+	 * @param directory directory storing the recording files.
+	 * @param maxCachedEvents maximum total number of events of the recordings decoded in memory.
+	 * The most recently used recording is always kept, even if it alone exceeds this limit.
+	 */
+	public RecordingLibrary(File directory, long maxCachedEvents) {
+		this.directory = directory;
+		this.maxCachedEvents = maxCachedEvents;
+		this.cache = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * Save events in the library, replacing any recording with the same name.
+	 *
+	 * @param name name of the recording. Only letters, digits, spaces, '_' and '-' are allowed.
+	 * @param events events to save.
+	 * @return if the recording was saved.
+	 */
+	public synchronized boolean save(String name, EventSource events) {
+		if (!isValidName(name)) {
+			LOGGER.warning("Invalid recording name " + name);
+			return false;
+		}
+		if (!FileUtility.createDirectory(directory.getAbsolutePath())) {
+			LOGGER.warning("Unable to create recording library directory " + directory.getAbsolutePath());
+			return false;
+		}
+
+		File file = getFile(name);
+		File temp = new File(directory, name + ".tmp");
+		try {
+			RecordingWriter.writeAll(events, temp);
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Unable to save recording " + name + " to " + file.getAbsolutePath(), e);
+			temp.delete();
+			return false;
+		}
+
+		evict(name);
+		return true;
+	}
+
+	/**
+	 * Get a recording ready for replay, decoding it from disk if it is not cached.
+	 *
+	 * @param name name of the recording.
+	 * @return the recording, or null if there is no recording with this name or it cannot be read.
+	 */
+	public synchronized SeekableEventSource get(String name) {
+		Timeline timeline = cache.get(name);
+		if (timeline != null) {
+			return timeline;
+		}
+
+		if (!contains(name)) {
+			LOGGER.warning("No recording named " + name);
+			return null;
+		}
+
+		try (RecordingReader reader = new RecordingReader(getFile(name))) {
+			timeline = decode(reader);
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Unable to read recording " + name, e);
+			return null;
+		}
+
+		cache.put(name, timeline);
+		cachedEvents += timeline.size();
+		trimCache();
+		return timeline;
+	}
+
+	/**
+	 * Remove a recording from the library and from disk.
+	 *
+	 * @param name name of the recording.
+	 * @return if the recording existed and was removed.
+	 */
+	public synchronized boolean remove(String name) {
+		evict(name);
+		if (!contains(name)) {
+			return false;
+		}
+		return FileUtility.removeFile(getFile(name));
+	}
+
+	public synchronized boolean contains(String name) {
+		return isValidName(name) && getFile(name).isFile();
+	}
+
+	/**
+	 * @return names of all recordings in the library, sorted alphabetically.
+	 */
+	public synchronized List<String> getNames() {
+		List<String> names = new ArrayList<>();
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return names;
+		}
+
+		for (File file : files) {
+			String fileName = file.getName();
+			if (file.isFile() && fileName.endsWith(Recorder.RECORDING_FILE_EXTENSION)) {
+				names.add(fileName.substring(0, fileName.length() - Recorder.RECORDING_FILE_EXTENSION.length()));
+			}
+		}
+		Collections.sort(names);
+		return names;
+	}
+
+	/**
+	 * @return total number of events of the recordings currently decoded in memory.
+	 */
+	public synchronized long getCachedEventCount() {
+		return cachedEvents;
+	}
+
+	private static Timeline decode(RecordingReader reader) {
+		Timeline timeline = new Timeline((int) Math.min(reader.getEventCount(), Integer.MAX_VALUE));
+		for (EventCursor cursor = reader.cursor(); cursor.next();) {
+			timeline.add(cursor.getTime(), cursor.getOpcode(), cursor.getArg(0), cursor.getArg(1));
+		}
+		return timeline;
+	}
+
+	private void evict(String name) {
+		Timeline removed = cache.remove(name);
+		if (removed != null) {
+			cachedEvents -= removed.size();
+		}
+	}
+
+	/**
+	 * Evict least recently used recordings until the cache fits its bound, keeping the most recently used one.
+	 */
+	private void trimCache() {
+		Iterator<Map.Entry<String, Timeline>> iterator = cache.entrySet().iterator();
+		while (cachedEvents > maxCachedEvents && cache.size() > 1) {
+			cachedEvents -= iterator.next().getValue().size();
+			iterator.remove();
+		}
+	}
+
+	private File getFile(String name) {
+		return new File(directory, name + Recorder.RECORDING_FILE_EXTENSION);
+	}
+
+	private static boolean isValidName(String name) {
+		return name != null && VALID_NAME.matcher(name).matches();
+	}
+}
@@ -0,0 +1,307 @@
+package core.recorder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import core.scheduler.EventOpcode;
+import core.scheduler.SeekableCursor;
+import core.scheduler.SeekableEventSource;
+
+/**
+ * Reads a recording written by {@link RecordingWriter} through a read only {@link MappedByteBuffer}.
+ * Only the block index is loaded into the heap. Events are decoded from the mapped file as they are iterated.
+ *
+ * Seeking by time or by event index is a binary search over the block index,
+ * followed by decoding at most one block of events.
+ *
+ * The mapping otherwise lives until the reader is garbage collected, and a mapped file cannot be deleted on Windows.
+ * So readers should be closed once they are no longer used (see {@link #close()}).
+ */
+public class RecordingReader implements SeekableEventSource, Closeable {
+
+	private static final Logger LOGGER = Logger.getLogger(RecordingReader.class.getName());
+
+	private final File file;
+	private final MappedByteBuffer buffer;
+
+	private final long[] blockTimes;
+	private final int[] blockOffsets;
+	private final int[] blockCounts;
+	private final long[] blockFirstEvents; // Index of the first event of each block.
+	private final long eventCount;
+	private final long lastTime;
+	private volatile boolean closed;
+
+	public RecordingReader(File file) throws IOException {
+		this.file = file;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Recording " + file + " is too large to map (" + size + " bytes).");
+			}
+			if (size < RecordingWriter.HEADER_SIZE + RecordingWriter.TRAILER_SIZE) {
+				throw new IOException("Recording " + file + " is truncated.");
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+
+		if (buffer.getInt(0) != RecordingWriter.MAGIC || buffer.get(4) != RecordingWriter.VERSION) {
+			throw new IOException("Unknown recording format in file " + file);
+		}
+
+		int trailer = buffer.limit() - RecordingWriter.TRAILER_SIZE;
+		if (buffer.getInt(trailer + 28) != RecordingWriter.MAGIC) {
+			throw new IOException("Missing block index in recording " + file + ". Was the recording closed properly?");
+		}
+
+		int indexOffset = (int) buffer.getLong(trailer);
+		int blockCount = buffer.getInt(trailer + 8);
+		eventCount = buffer.getLong(trailer + 12);
+		lastTime = buffer.getLong(trailer + 20);
+
+		blockTimes = new long[blockCount];
+		blockOffsets = new int[blockCount];
+		blockCounts = new int[blockCount];
+		blockFirstEvents = new long[blockCount];
+		long firstEvent = 0;
+		for (int i = 0; i < blockCount; i++) {
+			int entry = indexOffset + i * 20;
+			blockTimes[i] = buffer.getLong(entry);
+			blockOffsets[i] = (int) buffer.getLong(entry + 8);
+			blockCounts[i] = buffer.getInt(entry + 16);
+			blockFirstEvents[i] = firstEvent;
+			firstEvent += blockCounts[i];
+		}
+	}
+
+	/**
+	 * Release the mapping of the file so that it can be deleted. No cursor of this reader may be used afterwards,
+	 * and no new cursor can be created.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		unmap(buffer);
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	@Override
+	public long getEventCount() {
+		return eventCount;
+	}
+
+	@Override
+	public long getLastTime() {
+		return lastTime;
+	}
+
+	/**
+	 * @return number of blocks in this recording.
+	 */
+	public int getBlockCount() {
+		return blockTimes.length;
+	}
+
+	/**
+	 * @param block index of the block.
+	 * @return time of the first event in the block.
+	 */
+	public long getBlockTime(int block) {
+		return blockTimes[block];
+	}
+
+	/**
+	 * @param block index of the block.
+	 * @return number of events in the block.
+	 */
+	public int getBlockEventCount(int block) {
+		return blockCounts[block];
+	}
+
+	@Override
+	public long indexOf(long time) {
+		// Events with the given time may start in the last block starting strictly before it.
+		int block = -1;
+		for (int low = 0, high = blockTimes.length - 1; low <= high;) {
+			int mid = (low + high) >>> 1;
+			if (blockTimes[mid] < time) {
+				block = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		if (block == -1) {
+			return 0;
+		}
+
+		RecordingCursor cursor = cursor();
+		cursor.moveToBlock(block);
+		long index = blockFirstEvents[block];
+		for (int i = 0; i < blockCounts[block]; i++, index++) {
+			cursor.next();
+			if (cursor.getTime() >= time) {
+				break;
+			}
+		}
+		return index;
+	}
+
+	@Override
+	public RecordingCursor cursor() {
+		return new RecordingCursor();
+	}
+
+	/**
+	 * Cursor decoding events directly from the mapped file.
+	 */
+	public class RecordingCursor implements SeekableCursor {
+		private final ByteBuffer data;
+		private int block;
+		private int remainingInBlock;
+
+		private long time;
+		private byte opcode;
+		private int arg0, arg1;
+
+		private RecordingCursor() {
+			if (closed) {
+				throw new IllegalStateException("Recording " + file + " is closed.");
+			}
+			data = buffer.duplicate();
+			rewind();
+		}
+
+		@Override
+		public boolean next() {
+			while (remainingInBlock == 0) {
+				if (block + 1 >= blockTimes.length) {
+					return false;
+				}
+				moveToBlock(block + 1);
+			}
+
+			time += RecordingWriter.unzigzag(readVarLong());
+			opcode = data.get();
+			arg0 = (int) RecordingWriter.unzigzag(readVarLong());
+			arg1 = EventOpcode.getArgCount(opcode) > 1 ? (int) RecordingWriter.unzigzag(readVarLong()) : 0;
+			remainingInBlock--;
+			return true;
+		}
+
+		@Override
+		public long getTime() {
+			return time;
+		}
+
+		@Override
+		public byte getOpcode() {
+			return opcode;
+		}
+
+		@Override
+		public int getArg(int argIndex) {
+			return argIndex == 0 ? arg0 : arg1;
+		}
+
+		@Override
+		public void rewind() {
+			block = -1;
+			remainingInBlock = 0;
+		}
+
+		@Override
+		public void seek(long index) {
+			if (index >= eventCount) {
+				block = blockTimes.length - 1;
+				remainingInBlock = 0;
+				return;
+			}
+			if (index <= 0) {
+				rewind();
+				return;
+			}
+
+			int low = 0, high = blockFirstEvents.length - 1;
+			while (low < high) {
+				int mid = (low + high + 1) >>> 1;
+				if (blockFirstEvents[mid] <= index) {
+					low = mid;
+				} else {
+					high = mid - 1;
+				}
+			}
+
+			moveToBlock(low);
+			for (long skipped = index - blockFirstEvents[low]; skipped > 0; skipped--) {
+				next();
+			}
+		}
+
+		/**
+		 * Position the cursor before the first event of a block.
+		 *
+		 * @param block index of the block.
+		 */
+		public void moveToBlock(int block) {
+			this.block = block;
+			data.position(blockOffsets[block]);
+			remainingInBlock = blockCounts[block];
+			time = blockTimes[block];
+		}
+
+		private long readVarLong() {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = data.get();
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+	}
+
+	/**
+	 * Unmap a buffer right away instead of waiting for it to be garbage collected. There is no public API for this,
+	 * so this goes through {@code sun.misc.Unsafe} on Java 9 and later, and through the buffer cleaner on Java 8.
+	 * If neither works, the buffer is left to the garbage collector.
+	 */
+	private static void unmap(MappedByteBuffer buffer) {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Method invokeCleaner;
+			try {
+				invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			} catch (NoSuchMethodException e) { // Java 8.
+				Method getCleaner = buffer.getClass().getMethod("cleaner");
+				getCleaner.setAccessible(true);
+				Object cleaner = getCleaner.invoke(buffer);
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+				return;
+			}
+
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			invokeCleaner.invoke(theUnsafe.get(null), buffer);
+		} catch (Exception | LinkageError e) {
+			LOGGER.log(Level.FINE, "Unable to unmap recording. It will be unmapped when garbage collected.", e);
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package core.recorder;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import core.scheduler.EventCursor;
+import core.scheduler.EventOpcode;
+import core.scheduler.EventSource;
+
+/**
+ * Streams recorded events to a file in the binary recording format read by {@link RecordingReader}.
+ *
+ * The file starts with a header (magic and version), followed by blocks of at most {@link #BLOCK_SIZE} events.
+ * Each event is encoded as the zigzag varint time difference to the previous event in the same block,
+ * one opcode byte, then one zigzag varint per argument of the opcode.
+ * The first event of each block is encoded relative to the block start time, which is stored in the block index.
+ *
+ * The block index is written after the last block when the writer is closed. Each entry is the block start time,
+ * the file offset of the block and the number of events in it. The file ends with a fixed size trailer holding
+ * the index offset, block count, event count, time of the last event and the magic again.
+ */
+public class RecordingWriter implements Closeable {
+
+	static final int MAGIC = 0x52505243; // "RPRC"
+	static final byte VERSION = 1;
+	static final int HEADER_SIZE = 5;
+	static final int TRAILER_SIZE = 32;
+	static final int BLOCK_SIZE = 4096;
+
+	private static final int MAX_EVENT_SIZE = 10 + 1 + 5 * 2;
+
+	private final OutputStream output;
+	private final byte[] scratch;
+	private long position;
+
+	private long[] blockTimes;
+	private long[] blockOffsets;
+	private int[] blockCounts;
+	private int blockCount;
+
+	private long previousTime;
+	private long lastTime;
+	private long eventCount;
+	private boolean closed;
+
+	public RecordingWriter(File file) throws IOException {
+		this.output = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+		this.scratch = new byte[MAX_EVENT_SIZE];
+
+		this.blockTimes = new long[16];
+		this.blockOffsets = new long[16];
+		this.blockCounts = new int[16];
+
+		writeInt(MAGIC);
+		output.write(VERSION);
+		position = HEADER_SIZE;
+	}
+
+	/**
+	 * Append an event to the recording.
+	 *
+	 * @param time time of the event in milliseconds since the start of the recording.
+	 * @param opcode {@link EventOpcode} of the event.
+	 * @param arg0 first argument of the event.
+	 * @param arg1 second argument of the event, ignored if the opcode takes only one argument.
+	 */
+	public synchronized void write(long time, byte opcode, int arg0, int arg1) throws IOException {
+		if (closed) {
+			throw new IOException("Recording is already closed.");
+		}
+
+		if (blockCount == 0 || blockCounts[blockCount - 1] == BLOCK_SIZE) {
+			startBlock(time);
+		}
+
+		int length = 0;
+		length = putVarLong(scratch, length, zigzag(time - previousTime));
+		scratch[length++] = opcode;
+		length = putVarLong(scratch, length, zigzag(arg0));
+		if (EventOpcode.getArgCount(opcode) > 1) {
+			length = putVarLong(scratch, length, zigzag(arg1));
+		}
+		output.write(scratch, 0, length);
+
+		position += length;
+		previousTime = time;
+		lastTime = Math.max(lastTime, time);
+		blockCounts[blockCount - 1]++;
+		eventCount++;
+	}
+
+	/**
+	 * Write all events from a source to a new recording file.
+	 *
+	 * @param events events to write.
+	 * @param file file to write to. Existing content is overwritten.
+	 */
+	public static void writeAll(EventSource events, File file) throws IOException {
+		try (RecordingWriter writer = new RecordingWriter(file)) {
+			for (EventCursor cursor = events.cursor(); cursor.next();) {
+				writer.write(cursor.getTime(), cursor.getOpcode(), cursor.getArg(0), cursor.getArg(1));
+			}
+		}
+	}
+
+	/**
+	 * @return number of events written so far.
+	 */
+	public synchronized long getEventCount() {
+		return eventCount;
+	}
+
+	/**
+	 * Write the block index and trailer, then close the file.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try {
+			long indexOffset = position;
+			for (int i = 0; i < blockCount; i++) {
+				writeLong(blockTimes[i]);
+				writeLong(blockOffsets[i]);
+				writeInt(blockCounts[i]);
+			}
+
+			writeLong(indexOffset);
+			writeInt(blockCount);
+			writeLong(eventCount);
+			writeLong(lastTime);
+			writeInt(MAGIC);
+		} finally {
+			output.close();
+		}
+	}
+
+	private void startBlock(long time) {
+		if (blockCount == blockTimes.length) {
+			blockTimes = Arrays.copyOf(blockTimes, blockCount * 2);
+			blockOffsets = Arrays.copyOf(blockOffsets, blockCount * 2);
+			blockCounts = Arrays.copyOf(blockCounts, blockCount * 2);
+		}
+
+		blockTimes[blockCount] = time;
+		blockOffsets[blockCount] = position;
+		blockCounts[blockCount] = 0;
+		blockCount++;
+		previousTime = time;
+	}
+
+	private void writeInt(int value) throws IOException {
+		output.write(value >>> 24);
+		output.write(value >>> 16);
+		output.write(value >>> 8);
+		output.write(value);
+	}
+
+	private void writeLong(long value) throws IOException {
+		writeInt((int) (value >>> 32));
+		writeInt((int) value);
+	}
+
+	static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static int putVarLong(byte[] buffer, int offset, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[offset++] = (byte) value;
+		return offset;
+	}
+}
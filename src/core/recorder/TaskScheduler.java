@@ -1,13 +1,21 @@
 package core.recorder;
 
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import utilities.Function;
+import utilities.LatencyHistogram;
+import core.controller.Core;
 import core.scheduler.AbstractScheduler;
-import core.scheduler.SchedulingData;
+import core.scheduler.EventCursor;
+import core.scheduler.EventOpcode;
+import core.scheduler.EventRange;
+import core.scheduler.EventSource;
+import core.scheduler.ReplayProfile;
+import core.scheduler.SeekableEventSource;
 
-class TaskScheduler extends AbstractScheduler<Runnable> {
+class TaskScheduler extends AbstractScheduler {
 
 	private static final Logger LOGGER = Logger.getLogger(TaskScheduler.class.getName());
 
@@ -15,63 +23,69 @@ class TaskScheduler extends AbstractScheduler<Runnable> {
 		LOGGER.setLevel(Level.ALL);
 	}
 
+	private static final long NANOS_PER_MS = 1000000L;
+	/**
+	 * When waiting for a deadline, spin instead of parking once the deadline is closer than this.
+	 */
+	private static final long SPIN_THRESHOLD_NANOS = 300000L;
+
 	private Thread executeAgent;
 	private boolean isRunning;
+	private int replayMode;
+	private final LatencyHistogram lateness;
+	private SeekableEventSource recording;
+	private ReplayProfile profile;
 
 	protected TaskScheduler() {
 		super();
+		replayMode = Recorder.REPLAY_MODE_DEADLINE;
+		lateness = new LatencyHistogram();
+	}
+
+	protected synchronized boolean runTasks(long count, long delay, float speedup,
+											Function<Void, Void> callBack, long callBackDelay) {
+		return runTasks(getEvents(), count, delay, speedup, callBack, callBackDelay);
 	}
 
-	protected synchronized long runTasks(final long count, final long delay, final float speedup,
+	/**
+	 * Run a series of events, for example a range of {@link #getEvents()}. The replay profile is applied to it
+	 * on the replay thread, so this returns without walking through the events.
+	 *
+	 * @return if the replay started. Use {@link #waitForReplay()} to wait for it to finish.
+	 */
+	protected synchronized boolean runTasks(EventSource events, final long count, final long delay, final float speedup,
 											final Function<Void, Void> callBack, final long callBackDelay) {
 		if (isRunning) {
 			LOGGER.info("Cannot invoke two running instances");
-			return 0;
+			return false;
 		} else if (count < 1) {
 			LOGGER.warning("Attempt to run tasks with count " + count);
-			return 0;
+			return false;
 		} else if (delay < 0) {
 			LOGGER.warning("Attempt to run tasks with negative delay " + delay);
-			return 0;
+			return false;
 		} else if (callBackDelay < 0) {
 			LOGGER.warning("Attempt to run tasks with negative callBack delay " + callBackDelay);
-			return 0;
+			return false;
 		}
 
+		final EventSource source = getProfiledEvents(events, speedup);
 		isRunning = true;
+		lateness.reset();
 		Runnable running = new Runnable() {
 			@Override
 			public void run() {
-				for (long i = 0; i < count; i++) {
-					long time = 0;
-					for (SchedulingData<Runnable> t : tasks) {
-						long currentTime = t.getTime();
-
-						if (currentTime < time) {
-							LOGGER.severe("Something went really bad");
-							System.exit(1);
-						}
-
-						try {
-							Thread.sleep((long)((currentTime - time) / speedup));
-						} catch (InterruptedException e) {
-							LOGGER.info("Ended prematuredly");
-							return; // Ended prematurely
-						}
-
-						time = currentTime;
-						t.getData().run();
-					}
-
-					if (delay > 0) {
-						try {
-							Thread.sleep((long)(delay / speedup));
-						} catch (InterruptedException e) {
-							LOGGER.info("Ended prematuredly");
-							return; // Ended prematurely
-						}
+				try {
+					if (replayMode == Recorder.REPLAY_MODE_DEADLINE) {
+						runWithDeadlines(source, count, delay, speedup);
+					} else {
+						runWithSleeps(source, count, delay, speedup);
 					}
+				} catch (InterruptedException e) {
+					LOGGER.info("Ended prematuredly");
+					return; // Ended prematurely
 				}
+				LOGGER.info("Replay lateness: " + lateness);
 
 				if (callBack != null && callBackDelay > 0) {
 					try {
@@ -85,13 +99,205 @@ class TaskScheduler extends AbstractScheduler<Runnable> {
 		};
 		executeAgent = new Thread(running);
 		executeAgent.start();
+		return true;
+	}
 
-		if (tasks.isEmpty()) {
-			LOGGER.info("Nothing to run");
-			return callBackDelay;
-		} else {
-			return tasks.getLast().getTime() + callBackDelay;
+	/**
+	 * Wait until the running replay and its call back finish. Returns immediately if no replay is running.
+	 */
+	protected void waitForReplay() throws InterruptedException {
+		Thread agent;
+		synchronized (this) {
+			agent = isRunning ? executeAgent : null;
 		}
+		if (agent != null && agent != Thread.currentThread()) {
+			agent.join();
+		}
+	}
+
+	/**
+	 * @return the recording loaded into this scheduler if there is one, or the in memory timeline otherwise.
+	 */
+	protected SeekableEventSource getEvents() {
+		return recording != null ? recording : tasks;
+	}
+
+	/**
+	 * @param speedup speedup applied on top of the replay profile.
+	 * @return the events from {@link #getEvents()} with the replay profile applied, if there is one.
+	 */
+	protected EventSource getProfiledEvents(float speedup) {
+		return getProfiledEvents(getEvents(), speedup);
+	}
+
+	private EventSource getProfiledEvents(EventSource events, float speedup) {
+		if (profile == null) {
+			return events;
+		}
+		// Ranges have times relative to their start, but the profile segments are in recording time.
+		long timeOffset = events instanceof EventRange ? ((EventRange) events).getStartTime() : 0;
+		return profile.apply(events, speedup, timeOffset);
+	}
+
+	/**
+	 * Execute the current event of a cursor.
+	 *
+	 * @param event cursor positioned at the event to execute.
+	 * @throws InterruptedException if interrupted while executing the event.
+	 */
+	private void execute(EventCursor event) throws InterruptedException {
+		Core controller = Core.getInstance();
+		int arg0 = event.getArg(0);
+
+		switch (event.getOpcode()) {
+		case EventOpcode.KEY_PRESS:
+			controller.keyBoard().press(arg0);
+			break;
+		case EventOpcode.KEY_RELEASE:
+			controller.keyBoard().release(arg0);
+			break;
+		case EventOpcode.KEY_TYPE:
+			controller.keyBoard().type(arg0);
+			break;
+		case EventOpcode.MOUSE_MOVE:
+			controller.mouse().move(arg0, event.getArg(1));
+			break;
+		case EventOpcode.MOUSE_MOVE_BY:
+			controller.mouse().moveBy(arg0, event.getArg(1));
+			break;
+		case EventOpcode.MOUSE_PRESS:
+			controller.mouse().press(arg0);
+			break;
+		case EventOpcode.MOUSE_RELEASE:
+			controller.mouse().release(arg0);
+			break;
+		case EventOpcode.MOUSE_CLICK:
+			controller.mouse().click(arg0);
+			break;
+		default:
+			LOGGER.warning("Unknown opcode " + event.getOpcode() + " at time " + event.getTime());
+			break;
+		}
+	}
+
+	/**
+	 * Sleep for the time difference between each consecutive events. Sleep overshoot and the time
+	 * taken to execute each event accumulate over the replay.
+	 */
+	private void runWithSleeps(EventSource source, long count, long delay, float speedup) throws InterruptedException {
+		EventCursor event = source.cursor();
+		for (long i = 0; i < count; i++) {
+			long time = 0;
+			for (event.rewind(); event.next();) {
+				long currentTime = event.getTime();
+
+				if (currentTime < time) {
+					LOGGER.severe("Something went really bad");
+					System.exit(1);
+				}
+
+				long sleepTime = (long)((currentTime - time) / speedup);
+				long deadline = System.nanoTime() + sleepTime * NANOS_PER_MS;
+				Thread.sleep(sleepTime);
+				lateness.record(System.nanoTime() - deadline);
+
+				time = currentTime;
+				execute(event);
+			}
+
+			if (delay > 0) {
+				Thread.sleep((long)(delay / speedup));
+			}
+		}
+	}
+
+	/**
+	 * Execute each event at an absolute deadline computed from the start of the replay,
+	 * so that sleep overshoot and execution time of earlier events do not delay later events.
+	 */
+	private void runWithDeadlines(EventSource source, long count, long delay, float speedup) throws InterruptedException {
+		EventCursor event = source.cursor();
+		long iterationStart = System.nanoTime();
+		long iterationLength = toScaledNanos(source.getLastTime() + delay, speedup);
+
+		for (long i = 0; i < count; i++) {
+			for (event.rewind(); event.next();) {
+				long deadline = iterationStart + toScaledNanos(event.getTime(), speedup);
+				waitUntil(deadline);
+				lateness.record(System.nanoTime() - deadline);
+
+				execute(event);
+			}
+
+			iterationStart += iterationLength;
+			waitUntil(iterationStart);
+		}
+	}
+
+	/**
+	 * Block until the given {@link System#nanoTime()} deadline. The thread is parked until shortly before
+	 * the deadline, then spins for the rest of the time since parking may overshoot.
+	 */
+	private static void waitUntil(long deadline) throws InterruptedException {
+		while (true) {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return;
+			}
+
+			if (remaining > SPIN_THRESHOLD_NANOS) {
+				LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+			}
+		}
+	}
+
+	private static long toScaledNanos(long millis, float speedup) {
+		return (long) (millis * NANOS_PER_MS / (double) speedup);
+	}
+
+	/**
+	 * @return histogram of how late each event was executed compared to its scheduled time
+	 * during the last replay.
+	 */
+	protected LatencyHistogram getLateness() {
+		return lateness;
+	}
+
+	/**
+	 * Replay events from a recording instead of the in memory timeline.
+	 *
+	 * @param recording recording to replay, or null to replay the in memory timeline.
+	 * @return if the recording was loaded.
+	 */
+	protected synchronized boolean setRecording(SeekableEventSource recording) {
+		if (isRunning) {
+			LOGGER.info("Stop task scheduler first before loading a recording");
+			return false;
+		}
+
+		this.recording = recording;
+		return true;
+	}
+
+	/**
+	 * @param profile profile used to change the time between events on replay, or null to replay as recorded.
+	 */
+	protected synchronized boolean setReplayProfile(ReplayProfile profile) {
+		if (isRunning) {
+			LOGGER.info("Stop task scheduler first before changing the replay profile");
+			return false;
+		}
+
+		this.profile = profile;
+		return true;
+	}
+
+	protected void setReplayMode(int replayMode) {
+		this.replayMode = replayMode;
 	}
 
 	protected synchronized void halt() {
@@ -115,6 +321,7 @@ class TaskScheduler extends AbstractScheduler<Runnable> {
 		}
 
 		tasks.clear();
+		recording = null;
 		return true;
 	}
 
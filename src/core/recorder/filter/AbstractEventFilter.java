@@ -0,0 +1,43 @@
+package core.recorder.filter;
+
+import core.scheduler.EventSink;
+
+/**
+ * A stage of an {@link EventFilterPipeline}. A stage receives recorded events in chronological order
+ * and passes on (possibly fewer or modified) events to the next stage using {@link #emit(long, byte, int, int)}.
+ * Stages may hold back events, in which case they must emit them when {@link #flush()} is called.
+ */
+public abstract class AbstractEventFilter implements EventSink {
+
+	private EventSink next;
+
+	/**
+	 * Set where the events passing this stage go.
+	 *
+	 * @param next the next stage, or the final output of the pipeline.
+	 */
+	protected final void setNext(EventSink next) {
+		this.next = next;
+	}
+
+	/**
+	 * Pass an event to the next stage.
+	 */
+	protected final void emit(long time, byte opcode, int arg0, int arg1) {
+		if (next != null) {
+			next.accept(time, opcode, arg0, arg1);
+		}
+	}
+
+	/**
+	 * Emit all events held back by this stage. This is called when recording stops.
+	 */
+	public void flush() {
+	}
+
+	/**
+	 * Discard all state of this stage. This is called before a new recording starts.
+	 */
+	public void reset() {
+	}
+}
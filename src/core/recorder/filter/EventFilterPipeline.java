@@ -0,0 +1,109 @@
+package core.recorder.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import core.scheduler.EventSink;
+
+/**
+ * Chain of {@link AbstractEventFilter} stages applied to events on the recording path.
+ * An empty pipeline passes all events to its output unchanged.
+ */
+public class EventFilterPipeline implements EventSink {
+
+	private final List<AbstractEventFilter> stages;
+	private EventSink output;
+	private EventSink head;
+
+	public EventFilterPipeline() {
+		stages = new ArrayList<>();
+	}
+
+	/**
+	 * Build a pipeline with only the requested stages, in the order redundant event removal,
+	 * mouse move decimation then time quantization.
+	 *
+	 * @param removeRedundant whether to remove redundant events.
+	 * @param mouseMoveTolerance tolerance in pixels to decimate mouse moves with, or 0 to keep all mouse moves.
+	 * @param mouseMoveMaxInterval a mouse move is always kept if no move was kept during this many milliseconds before it.
+	 * @param timeQuantum time quantum in milliseconds to round event times to, or 0 to keep the exact times.
+	 * @return the pipeline, which is empty if no stage is requested.
+	 */
+	public static EventFilterPipeline of(boolean removeRedundant, int mouseMoveTolerance, long mouseMoveMaxInterval, long timeQuantum) {
+		EventFilterPipeline pipeline = new EventFilterPipeline();
+		if (removeRedundant) {
+			pipeline.addStage(new RedundantEventFilter());
+		}
+		if (mouseMoveTolerance > 0) {
+			pipeline.addStage(new MouseMoveDecimationFilter(mouseMoveTolerance, mouseMoveMaxInterval));
+		}
+		if (timeQuantum > 0) {
+			pipeline.addStage(new TimeQuantizationFilter(timeQuantum));
+		}
+		return pipeline;
+	}
+
+	/**
+	 * Append a stage at the end of the pipeline.
+	 *
+	 * @param stage stage to append.
+	 * @return this pipeline.
+	 */
+	public synchronized EventFilterPipeline addStage(AbstractEventFilter stage) {
+		stages.add(stage);
+		link();
+		return this;
+	}
+
+	/**
+	 * @return the stages in this pipeline, in the order events go through them.
+	 */
+	public synchronized List<AbstractEventFilter> getStages() {
+		return new ArrayList<>(stages);
+	}
+
+	/**
+	 * Set where the events passing the whole pipeline go.
+	 *
+	 * @param output receiver of the filtered events.
+	 */
+	public synchronized void setOutput(EventSink output) {
+		this.output = output;
+		link();
+	}
+
+	@Override
+	public void accept(long time, byte opcode, int arg0, int arg1) {
+		EventSink first = head;
+		if (first != null) {
+			first.accept(time, opcode, arg0, arg1);
+		}
+	}
+
+	/**
+	 * Emit all events held back by any stage, in order.
+	 */
+	public synchronized void flush() {
+		for (AbstractEventFilter stage : stages) {
+			stage.flush();
+		}
+	}
+
+	/**
+	 * Discard the state of all stages.
+	 */
+	public synchronized void reset() {
+		for (AbstractEventFilter stage : stages) {
+			stage.reset();
+		}
+	}
+
+	private void link() {
+		EventSink next = output;
+		for (int i = stages.size() - 1; i >= 0; i--) {
+			stages.get(i).setNext(next);
+			next = stages.get(i);
+		}
+		head = next;
+	}
+}
@@ -0,0 +1,191 @@
+package core.recorder.filter;
+
+import core.scheduler.EventOpcode;
+
+/**
+ * Reduces the number of consecutive mouse moves using the Ramer-Douglas-Peucker algorithm over a sliding window.
+ * A move is dropped if the mouse path stays within a distance tolerance of the simplified path without it.
+ *
+ * Moves are buffered until the window is full, a non move event arrives, or the mouse pauses for longer than
+ * the maximum gap. The first and last moves of each window and moves right before a pause are always kept,
+ * so the mouse is where it should be whenever it rests or clicks.
+ * A move is also always kept if no move was kept during the maximum interval before it, so the cursor never jumps
+ * and drags stay smooth even along straight lines.
+ */
+public class MouseMoveDecimationFilter extends AbstractEventFilter {
+
+	private static final double DEFAULT_TOLERANCE = 2;
+	private static final int DEFAULT_WINDOW_SIZE = 64;
+	private static final long DEFAULT_MAX_GAP_MS = 50;
+	public static final long DEFAULT_MAX_INTERVAL_MS = 16;
+
+	private final double toleranceSquared;
+	private final int windowSize;
+	private final long maxGap;
+	private final long maxInterval;
+
+	private final long[] times;
+	private final int[] xs, ys;
+	private final boolean[] keep;
+	private final int[] stack;
+	private int count;
+	private boolean anchored; // Whether the first buffered move has already been emitted.
+
+	public MouseMoveDecimationFilter() {
+		this(DEFAULT_TOLERANCE, DEFAULT_MAX_INTERVAL_MS);
+	}
+
+	/**
+	 * @param tolerance maximum distance in pixels between a dropped move and the simplified path.
+	 * @param maxInterval a move is kept if no move was kept during this many milliseconds before it.
+	 */
+	public MouseMoveDecimationFilter(double tolerance, long maxInterval) {
+		this(tolerance, DEFAULT_WINDOW_SIZE, DEFAULT_MAX_GAP_MS, maxInterval);
+	}
+
+	/**
+	 * @param tolerance maximum distance in pixels between a dropped move and the simplified path.
+	 * @param windowSize maximum number of consecutive moves simplified together. Must be at least 3.
+	 * @param maxGap moves further apart than this many milliseconds are never simplified together.
+	 * @param maxInterval a move is kept if no move was kept during this many milliseconds before it.
+	 */
+	public MouseMoveDecimationFilter(double tolerance, int windowSize, long maxGap, long maxInterval) {
+		if (windowSize < 3) {
+			throw new IllegalArgumentException("Window size must be at least 3 but got " + windowSize);
+		}
+
+		this.toleranceSquared = tolerance * tolerance;
+		this.windowSize = windowSize;
+		this.maxGap = maxGap;
+		this.maxInterval = maxInterval;
+
+		times = new long[windowSize];
+		xs = new int[windowSize];
+		ys = new int[windowSize];
+		keep = new boolean[windowSize];
+		stack = new int[windowSize * 2];
+	}
+
+	@Override
+	public void accept(long time, byte opcode, int arg0, int arg1) {
+		if (opcode != EventOpcode.MOUSE_MOVE) {
+			flushWindow(false);
+			emit(time, opcode, arg0, arg1);
+			return;
+		}
+
+		if (count > 0 && time - times[count - 1] > maxGap) {
+			flushWindow(false);
+		}
+
+		times[count] = time;
+		xs[count] = arg0;
+		ys[count] = arg1;
+		count++;
+
+		if (count == windowSize) {
+			flushWindow(true);
+		}
+	}
+
+	@Override
+	public void flush() {
+		flushWindow(false);
+	}
+
+	@Override
+	public void reset() {
+		count = 0;
+		anchored = false;
+	}
+
+	/**
+	 * Simplify and emit the buffered moves.
+	 *
+	 * @param carryLast whether to keep the last move in the buffer as the start of the next window.
+	 */
+	private void flushWindow(boolean carryLast) {
+		if (count == 0) {
+			return;
+		}
+
+		simplify();
+		for (int i = anchored ? 1 : 0; i < count; i++) {
+			if (keep[i]) {
+				emit(times[i], EventOpcode.MOUSE_MOVE, xs[i], ys[i]);
+			}
+		}
+
+		if (carryLast) {
+			times[0] = times[count - 1];
+			xs[0] = xs[count - 1];
+			ys[0] = ys[count - 1];
+			count = 1;
+			anchored = true;
+		} else {
+			count = 0;
+			anchored = false;
+		}
+	}
+
+	/**
+	 * Mark the buffered moves to keep, using an explicit stack instead of recursion,
+	 * then keep enough moves so that no two kept moves are more than the maximum interval apart.
+	 */
+	private void simplify() {
+		for (int i = 0; i < count; i++) {
+			keep[i] = false;
+		}
+		keep[0] = true;
+		keep[count - 1] = true;
+
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = count - 1;
+		while (top > 0) {
+			int end = stack[--top];
+			int start = stack[--top];
+
+			int farthest = -1;
+			double farthestDistance = toleranceSquared;
+			for (int i = start + 1; i < end; i++) {
+				double distance = distanceSquaredToSegment(i, start, end);
+				if (distance > farthestDistance) {
+					farthest = i;
+					farthestDistance = distance;
+				}
+			}
+
+			if (farthest != -1) {
+				keep[farthest] = true;
+				stack[top++] = start;
+				stack[top++] = farthest;
+				stack[top++] = farthest;
+				stack[top++] = end;
+			}
+		}
+
+		long lastKept = times[0];
+		for (int i = 1; i < count; i++) {
+			if (!keep[i] && times[i] - lastKept >= maxInterval) {
+				keep[i] = true;
+			}
+			if (keep[i]) {
+				lastKept = times[i];
+			}
+		}
+	}
+
+	private double distanceSquaredToSegment(int point, int start, int end) {
+		double dx = xs[end] - xs[start];
+		double dy = ys[end] - ys[start];
+		double px = xs[point] - xs[start];
+		double py = ys[point] - ys[start];
+
+		double lengthSquared = dx * dx + dy * dy;
+		double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSquared));
+		double ex = px - t * dx;
+		double ey = py - t * dy;
+		return ex * ex + ey * ey;
+	}
+}
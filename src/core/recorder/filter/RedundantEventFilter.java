@@ -0,0 +1,68 @@
+package core.recorder.filter;
+
+import java.util.BitSet;
+
+import core.scheduler.EventOpcode;
+
+/**
+ * Removes events that do not change anything when replayed: mouse moves to the position the mouse is already at,
+ * and repeated presses of a key or mouse button that is already held down.
+ */
+public class RedundantEventFilter extends AbstractEventFilter {
+
+	private final BitSet pressedKeys;
+	private int pressedMouseButtons;
+	private boolean hasMousePosition;
+	private int mouseX, mouseY;
+
+	public RedundantEventFilter() {
+		pressedKeys = new BitSet(1024);
+	}
+
+	@Override
+	public void accept(long time, byte opcode, int arg0, int arg1) {
+		switch (opcode) {
+		case EventOpcode.MOUSE_MOVE:
+			if (hasMousePosition && mouseX == arg0 && mouseY == arg1) {
+				return;
+			}
+			hasMousePosition = true;
+			mouseX = arg0;
+			mouseY = arg1;
+			break;
+		case EventOpcode.KEY_PRESS:
+			if (arg0 >= 0) {
+				if (pressedKeys.get(arg0)) {
+					return;
+				}
+				pressedKeys.set(arg0);
+			}
+			break;
+		case EventOpcode.KEY_RELEASE:
+			if (arg0 >= 0) {
+				pressedKeys.clear(arg0);
+			}
+			break;
+		case EventOpcode.MOUSE_PRESS:
+			if ((pressedMouseButtons & arg0) == arg0 && arg0 != 0) {
+				return;
+			}
+			pressedMouseButtons |= arg0;
+			break;
+		case EventOpcode.MOUSE_RELEASE:
+			pressedMouseButtons &= ~arg0;
+			break;
+		default:
+			break;
+		}
+
+		emit(time, opcode, arg0, arg1);
+	}
+
+	@Override
+	public void reset() {
+		pressedKeys.clear();
+		pressedMouseButtons = 0;
+		hasMousePosition = false;
+	}
+}
@@ -0,0 +1,25 @@
+package core.recorder.filter;
+
+/**
+ * Rounds event times down to a multiple of a fixed quantum. Events close together in time then share
+ * the same time, which removes the tiny waits between them on replay and in generated source code.
+ */
+public class TimeQuantizationFilter extends AbstractEventFilter {
+
+	private final long quantum;
+
+	/**
+	 * @param quantum time quantum in milliseconds. Must be positive.
+	 */
+	public TimeQuantizationFilter(long quantum) {
+		if (quantum <= 0) {
+			throw new IllegalArgumentException("Time quantum must be positive but got " + quantum);
+		}
+		this.quantum = quantum;
+	}
+
+	@Override
+	public void accept(long time, byte opcode, int arg0, int arg1) {
+		emit(Math.floorDiv(time, quantum) * quantum, opcode, arg0, arg1);
+	}
+}
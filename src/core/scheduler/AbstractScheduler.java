@@ -1,51 +1,32 @@
 package core.scheduler;
 
-import java.util.LinkedList;
-import java.util.Stack;
-
-public abstract class AbstractScheduler<T> {
-	protected final LinkedList<SchedulingData<T>> tasks;
+public abstract class AbstractScheduler {
+	protected final Timeline tasks;
 
 	public AbstractScheduler() {
-		this.tasks = new LinkedList<>();
+		this.tasks = new Timeline();
 	}
 
-	public final synchronized boolean addTask(SchedulingData<T> task) {
+	/**
+	 * Schedule an event at the given time. Events do not have to be added in chronological order.
+	 *
+	 * @param time time of the event.
+	 * @param opcode {@link EventOpcode} of the event.
+	 * @param arg0 first argument of the event.
+	 * @param arg1 second argument of the event, ignored if the opcode takes only one argument.
+	 * @return if the event was scheduled.
+	 */
+	public final synchronized boolean addTask(long time, byte opcode, int arg0, int arg1) {
 		if (!isLegalAddTask()) {
 			return false;
 		}
 
-		Stack<SchedulingData<T>> temp = new Stack<>();
-		while (true) {
-			SchedulingData<T> lastItem;
-			if (tasks.isEmpty()) {
-				lastItem = null;
-			} else {
-				lastItem = tasks.getLast();
-			}
-
-			if (lastItem == null || lastItem.getTime() < task.getTime()) {
-				tasks.addLast(task);
-				while (!temp.isEmpty()) {
-					tasks.add(temp.pop());
-				}
-				return true;
-			} else {
-				temp.push(tasks.removeLast());
-			}
-		}
+		tasks.add(time, opcode, arg0, arg1);
+		return true;
 	}
 
 	protected abstract boolean isLegalAddTask();
 
-	protected SchedulingData<T> getLast() {
-		return tasks.getLast();
-	}
-
-	protected SchedulingData<T> getFirst() {
-		return tasks.getFirst();
-	}
-
 	/**
 	 * Delete all data from this scheduler.
 	 */
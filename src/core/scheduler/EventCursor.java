@@ -0,0 +1,36 @@
+package core.scheduler;
+
+/**
+ * Forward iterator over the events of an {@link EventSource}.
+ * The cursor exposes the current event through its getters, so iterating does not allocate.
+ */
+public interface EventCursor {
+
+	/**
+	 * Move to the next event.
+	 *
+	 * @return true if there is a next event, false if the cursor has passed the last event.
+	 */
+	public boolean next();
+
+	/**
+	 * @return time of the current event.
+	 */
+	public long getTime();
+
+	/**
+	 * @return {@link EventOpcode} of the current event.
+	 */
+	public byte getOpcode();
+
+	/**
+	 * @param argIndex index of the argument, from 0 to {@link Timeline#ARG_COUNT} - 1.
+	 * @return the argument of the current event.
+	 */
+	public int getArg(int argIndex);
+
+	/**
+	 * Move the cursor back to before the first event.
+	 */
+	public void rewind();
+}
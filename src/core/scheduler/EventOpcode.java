@@ -0,0 +1,128 @@
+package core.scheduler;
+
+/**
+ * Opcodes of the device actions that can be stored in a {@link Timeline}.
+ * Each opcode takes at most {@link Timeline#ARG_COUNT} integer arguments.
+ */
+public final class EventOpcode {
+
+	public static final byte UNKNOWN = 0;
+	public static final byte KEY_PRESS = 1; // Key code.
+	public static final byte KEY_RELEASE = 2; // Key code.
+	public static final byte KEY_TYPE = 3; // Key code.
+	public static final byte MOUSE_MOVE = 4; // X, Y.
+	public static final byte MOUSE_MOVE_BY = 5; // Delta x, delta y.
+	public static final byte MOUSE_PRESS = 6; // Button mask.
+	public static final byte MOUSE_RELEASE = 7; // Button mask.
+	public static final byte MOUSE_CLICK = 8; // Button mask.
+	/**
+	 * Number of opcodes including {@link #UNKNOWN}. Known opcodes are from 1 to this value - 1.
+	 */
+	public static final byte COUNT = 9;
+
+	public static final String DEVICE_KEYBOARD = "keyBoard";
+	public static final String DEVICE_MOUSE = "mouse";
+
+	private EventOpcode() {}
+
+	/**
+	 * Find the opcode for a device action.
+	 *
+	 * @param device device name, either {@link #DEVICE_KEYBOARD} or {@link #DEVICE_MOUSE}.
+	 * @param action action name of the device (e.g. press, release, move).
+	 * @return the opcode of the action, or {@link #UNKNOWN} if the action is not recognized.
+	 */
+	public static byte of(String device, String action) {
+		if (DEVICE_KEYBOARD.equals(device)) {
+			switch (action) {
+			case "press":
+				return KEY_PRESS;
+			case "release":
+				return KEY_RELEASE;
+			case "type":
+				return KEY_TYPE;
+			default:
+				return UNKNOWN;
+			}
+		} else if (DEVICE_MOUSE.equals(device)) {
+			switch (action) {
+			case "move":
+				return MOUSE_MOVE;
+			case "moveBy":
+				return MOUSE_MOVE_BY;
+			case "press":
+				return MOUSE_PRESS;
+			case "release":
+				return MOUSE_RELEASE;
+			case "click":
+				return MOUSE_CLICK;
+			default:
+				return UNKNOWN;
+			}
+		}
+
+		return UNKNOWN;
+	}
+
+	/**
+	 * @param opcode opcode to check.
+	 * @return if the opcode is an action on the keyboard.
+	 */
+	public static boolean isKeyboard(byte opcode) {
+		return opcode == KEY_PRESS || opcode == KEY_RELEASE || opcode == KEY_TYPE;
+	}
+
+	/**
+	 * @param opcode opcode to check.
+	 * @return if the opcode is an action on the mouse.
+	 */
+	public static boolean isMouse(byte opcode) {
+		return opcode >= MOUSE_MOVE && opcode <= MOUSE_CLICK;
+	}
+
+	/**
+	 * @param opcode opcode to check.
+	 * @return number of arguments used by this opcode.
+	 */
+	public static int getArgCount(byte opcode) {
+		return (opcode == MOUSE_MOVE || opcode == MOUSE_MOVE_BY) ? 2 : 1;
+	}
+
+	/**
+	 * @param opcode opcode to look up.
+	 * @return the device name of the opcode, or null if opcode is unknown.
+	 */
+	public static String getDevice(byte opcode) {
+		if (isKeyboard(opcode)) {
+			return DEVICE_KEYBOARD;
+		} else if (isMouse(opcode)) {
+			return DEVICE_MOUSE;
+		}
+		return null;
+	}
+
+	/**
+	 * @param opcode opcode to look up.
+	 * @return the action name of the opcode, or null if opcode is unknown.
+	 */
+	public static String getAction(byte opcode) {
+		switch (opcode) {
+		case KEY_PRESS:
+		case MOUSE_PRESS:
+			return "press";
+		case KEY_RELEASE:
+		case MOUSE_RELEASE:
+			return "release";
+		case KEY_TYPE:
+			return "type";
+		case MOUSE_MOVE:
+			return "move";
+		case MOUSE_MOVE_BY:
+			return "moveBy";
+		case MOUSE_CLICK:
+			return "click";
+		default:
+			return null;
+		}
+	}
+}
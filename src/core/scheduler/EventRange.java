@@ -0,0 +1,133 @@
+package core.scheduler;
+
+/**
+ * A contiguous range of events from a {@link SeekableEventSource}. Event times are relative to the start of the
+ * range, so the range can be replayed as if it were a recording on its own.
+ *
+ * Iterating the range seeks directly to its first event, so earlier events are never walked through.
+ */
+public class EventRange implements EventSource {
+
+	private final SeekableEventSource source;
+	private final long fromIndex, toIndex;
+	private final long startTime;
+
+	private EventRange(SeekableEventSource source, long fromIndex, long toIndex, long startTime) {
+		this.source = source;
+		this.fromIndex = fromIndex;
+		this.toIndex = Math.max(fromIndex, toIndex);
+		this.startTime = startTime;
+	}
+
+	/**
+	 * Create a range of the events within a time interval. Event times in the range are relative to the start time.
+	 *
+	 * @param source source of the events.
+	 * @param from start of the interval, inclusive.
+	 * @param to end of the interval, exclusive. Use {@link Long#MAX_VALUE} to include all remaining events.
+	 */
+	public static EventRange ofTime(SeekableEventSource source, long from, long to) {
+		from = Math.max(from, 0);
+		long fromIndex = source.indexOf(from);
+		long toIndex = to == Long.MAX_VALUE ? source.getEventCount() : source.indexOf(to);
+		return new EventRange(source, fromIndex, toIndex, from);
+	}
+
+	/**
+	 * Create a range of events by index. Event times in the range are relative to the time of the first event.
+	 *
+	 * @param source source of the events.
+	 * @param fromIndex index of the first event, inclusive.
+	 * @param toIndex index of the last event, exclusive. Use {@link Long#MAX_VALUE} to include all remaining events.
+	 */
+	public static EventRange ofEvents(SeekableEventSource source, long fromIndex, long toIndex) {
+		long eventCount = source.getEventCount();
+		fromIndex = Math.max(0, Math.min(fromIndex, eventCount));
+		toIndex = Math.min(toIndex, eventCount);
+
+		long startTime = 0;
+		if (fromIndex < toIndex) {
+			SeekableCursor cursor = source.cursor();
+			cursor.seek(fromIndex);
+			cursor.next();
+			startTime = cursor.getTime();
+		}
+		return new EventRange(source, fromIndex, toIndex, startTime);
+	}
+
+	/**
+	 * @return index of the first event of this range in the source.
+	 */
+	public long getFromIndex() {
+		return fromIndex;
+	}
+
+	/**
+	 * @return time in the source that event times in this range are relative to.
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	@Override
+	public EventCursor cursor() {
+		return new RangeCursor();
+	}
+
+	@Override
+	public long getEventCount() {
+		return toIndex - fromIndex;
+	}
+
+	@Override
+	public long getLastTime() {
+		if (toIndex == fromIndex) {
+			return 0;
+		}
+
+		SeekableCursor cursor = source.cursor();
+		cursor.seek(toIndex - 1);
+		cursor.next();
+		return cursor.getTime() - startTime;
+	}
+
+	private class RangeCursor implements EventCursor {
+		private final SeekableCursor cursor;
+		private long remaining;
+
+		private RangeCursor() {
+			cursor = source.cursor();
+			rewind();
+		}
+
+		@Override
+		public boolean next() {
+			if (remaining == 0) {
+				return false;
+			}
+			remaining--;
+			return cursor.next();
+		}
+
+		@Override
+		public long getTime() {
+			return cursor.getTime() - startTime;
+		}
+
+		@Override
+		public byte getOpcode() {
+			return cursor.getOpcode();
+		}
+
+		@Override
+		public int getArg(int argIndex) {
+			return cursor.getArg(argIndex);
+		}
+
+		@Override
+		public void rewind() {
+			cursor.seek(fromIndex);
+			remaining = toIndex - fromIndex;
+		}
+	}
+}
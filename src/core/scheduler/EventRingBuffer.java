@@ -0,0 +1,100 @@
+package core.scheduler;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single producer, single consumer queue of events, stored in preallocated primitive arrays.
+ * Offering and draining events neither allocates nor locks.
+ *
+ * Only one thread may call {@link #offer(long, byte, int, int)} and only one (other) thread may call
+ * {@link #drain(EventSink)}. When the buffer is full, new events are dropped and counted.
+ */
+public class EventRingBuffer {
+
+	private final int capacity;
+	private final int mask;
+	private final long[] times;
+	private final byte[] opcodes;
+	private final int[] args;
+
+	private final AtomicLong head; // Next slot to read. Written by the consumer only.
+	private final AtomicLong tail; // Next slot to write. Written by the producer only.
+	private final AtomicLong dropped; // Written by the producer only.
+	private long cachedHead; // Producer's last known value of head.
+
+	/**
+	 * @param capacity minimum capacity of the buffer. This is rounded up to a power of two.
+	 */
+	public EventRingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.capacity = size;
+		this.mask = size - 1;
+		this.times = new long[size];
+		this.opcodes = new byte[size];
+		this.args = new int[size * Timeline.ARG_COUNT];
+
+		this.head = new AtomicLong();
+		this.tail = new AtomicLong();
+		this.dropped = new AtomicLong();
+	}
+
+	/**
+	 * Add an event to the buffer. This must only be called from the producer thread.
+	 *
+	 * @return true if the event was added, false if it was dropped because the buffer is full.
+	 */
+	public boolean offer(long time, byte opcode, int arg0, int arg1) {
+		long t = tail.get();
+		if (t - cachedHead >= capacity) {
+			cachedHead = head.get();
+			if (t - cachedHead >= capacity) {
+				dropped.lazySet(dropped.get() + 1);
+				return false;
+			}
+		}
+
+		int slot = (int) (t & mask);
+		times[slot] = time;
+		opcodes[slot] = opcode;
+		args[slot * Timeline.ARG_COUNT] = arg0;
+		args[slot * Timeline.ARG_COUNT + 1] = arg1;
+		tail.lazySet(t + 1); // Publish the slot.
+		return true;
+	}
+
+	/**
+	 * Pass all events currently in the buffer to the sink, in the order they were offered.
+	 * This must only be called from the consumer thread.
+	 *
+	 * @param sink receiver of the events.
+	 * @return number of events drained.
+	 */
+	public int drain(EventSink sink) {
+		long h = head.get();
+		long t = tail.get();
+		for (long i = h; i < t; i++) {
+			int slot = (int) (i & mask);
+			sink.accept(times[slot], opcodes[slot], args[slot * Timeline.ARG_COUNT], args[slot * Timeline.ARG_COUNT + 1]);
+		}
+		head.lazySet(t); // Release the slots to the producer.
+		return (int) (t - h);
+	}
+
+	/**
+	 * @return number of events currently waiting in the buffer.
+	 */
+	public int size() {
+		return (int) (tail.get() - head.get());
+	}
+
+	/**
+	 * @return number of events dropped because the buffer was full.
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+}
@@ -0,0 +1,15 @@
+package core.scheduler;
+
+/**
+ * Receives events one at a time, without wrapping each event in an object.
+ */
+public interface EventSink {
+
+	/**
+	 * @param time time of the event.
+	 * @param opcode {@link EventOpcode} of the event.
+	 * @param arg0 first argument of the event.
+	 * @param arg1 second argument of the event.
+	 */
+	public void accept(long time, byte opcode, int arg0, int arg1);
+}
@@ -0,0 +1,22 @@
+package core.scheduler;
+
+/**
+ * A chronologically ordered series of events that can be iterated with an {@link EventCursor}.
+ */
+public interface EventSource {
+
+	/**
+	 * @return a new cursor positioned before the first event.
+	 */
+	public EventCursor cursor();
+
+	/**
+	 * @return number of events in this source.
+	 */
+	public long getEventCount();
+
+	/**
+	 * @return time of the last event, or 0 if there is no event.
+	 */
+	public long getLastTime();
+}
@@ -0,0 +1,317 @@
+package core.scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Describes how the time between recorded events is changed on replay and in generated source code.
+ *
+ * For each event, the gap since the previous event is transformed in this order:
+ * <ol>
+ * <li>Gaps above the compression threshold have their excess divided by the compression factor.</li>
+ * <li>Gaps are capped at the maximum gap.</li>
+ * <li>Gaps ending inside a speed segment are divided by the speed of that segment.</li>
+ * </ol>
+ * The global speedup still applies on top of the profile. In addition, consecutive mouse moves that would be
+ * executed within the same replay tick are dropped except for the last one.
+ *
+ * Instances of this class are immutable. Use {@link #newBuilder()} to create one.
+ */
+public class ReplayProfile {
+
+	private final long maxGap;
+	private final long compressionThreshold;
+	private final float compressionFactor;
+	private final long[] segmentStarts;
+	private final long[] segmentEnds;
+	private final float[] segmentSpeeds;
+	private final float moveTick;
+
+	private ReplayProfile(Builder builder) {
+		maxGap = builder.maxGap;
+		compressionThreshold = builder.compressionThreshold;
+		compressionFactor = builder.compressionFactor;
+		moveTick = builder.moveTick;
+
+		List<Segment> segments = new ArrayList<>(builder.segments);
+		Collections.sort(segments, new Comparator<Segment>() {
+			@Override
+			public int compare(Segment a, Segment b) {
+				return Long.compare(a.start, b.start);
+			}
+		});
+		segmentStarts = new long[segments.size()];
+		segmentEnds = new long[segments.size()];
+		segmentSpeeds = new float[segments.size()];
+		for (int i = 0; i < segments.size(); i++) {
+			segmentStarts[i] = segments.get(i).start;
+			segmentEnds[i] = segments.get(i).end;
+			segmentSpeeds[i] = segments.get(i).speed;
+		}
+	}
+
+	/**
+	 * Apply this profile to a series of events.
+	 *
+	 * @param source the recorded events.
+	 * @param speedup the global speedup that will be applied on top of this profile. This is only used to find
+	 * mouse moves falling within the same replay tick.
+	 * @return the events with profiled times.
+	 */
+	public EventSource apply(EventSource source, float speedup) {
+		return apply(source, speedup, 0);
+	}
+
+	/**
+	 * Apply this profile to a series of events whose times are relative to a point in the recording,
+	 * such as an {@link EventRange}. Speed segments are given in recording time, so they are shifted by that point.
+	 *
+	 * @param source the recorded events.
+	 * @param speedup the global speedup that will be applied on top of this profile. This is only used to find
+	 * mouse moves falling within the same replay tick.
+	 * @param timeOffset time in the recording that event times in the source are relative to.
+	 * @return the events with profiled times.
+	 */
+	public EventSource apply(final EventSource source, final float speedup, final long timeOffset) {
+		return new EventSource() {
+			private long eventCount = -1;
+			private long lastTime;
+
+			@Override
+			public EventCursor cursor() {
+				return new ProfiledCursor(source.cursor(), speedup, timeOffset);
+			}
+
+			@Override
+			public synchronized long getEventCount() {
+				summarize();
+				return eventCount;
+			}
+
+			@Override
+			public synchronized long getLastTime() {
+				summarize();
+				return lastTime;
+			}
+
+			private void summarize() {
+				if (eventCount >= 0) {
+					return;
+				}
+
+				long count = 0;
+				for (EventCursor cursor = cursor(); cursor.next();) {
+					count++;
+					lastTime = cursor.getTime();
+				}
+				eventCount = count;
+			}
+		};
+	}
+
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * Cursor mapping recorded times to profiled times as it goes, with one event of look ahead to drop moves.
+	 */
+	private class ProfiledCursor implements EventCursor {
+		private final EventCursor source;
+		private final double tickLength;
+		private final long timeOffset;
+
+		private long time;
+		private byte opcode;
+		private int arg0, arg1;
+
+		private boolean hasPending;
+		private long pendingTime;
+		private byte pendingOpcode;
+		private int pendingArg0, pendingArg1;
+
+		private long previousSourceTime;
+		private double profiledTime;
+		private int segment;
+
+		private ProfiledCursor(EventCursor source, float speedup, long timeOffset) {
+			this.source = source;
+			this.tickLength = moveTick * speedup;
+			this.timeOffset = timeOffset;
+		}
+
+		@Override
+		public boolean next() {
+			while (true) {
+				if (!hasPending && !fetch()) {
+					return false;
+				}
+
+				time = pendingTime;
+				opcode = pendingOpcode;
+				arg0 = pendingArg0;
+				arg1 = pendingArg1;
+				hasPending = false;
+
+				if (tickLength > 0 && opcode == EventOpcode.MOUSE_MOVE && fetch()
+						&& pendingOpcode == EventOpcode.MOUSE_MOVE && sameTick(time, pendingTime)) {
+					continue; // A later move is executed within the same tick, so this one is not visible.
+				}
+				return true;
+			}
+		}
+
+		@Override
+		public long getTime() {
+			return time;
+		}
+
+		@Override
+		public byte getOpcode() {
+			return opcode;
+		}
+
+		@Override
+		public int getArg(int argIndex) {
+			return argIndex == 0 ? arg0 : arg1;
+		}
+
+		@Override
+		public void rewind() {
+			source.rewind();
+			hasPending = false;
+			previousSourceTime = 0;
+			profiledTime = 0;
+			segment = 0;
+		}
+
+		private boolean fetch() {
+			if (!source.next()) {
+				return false;
+			}
+
+			pendingTime = map(source.getTime());
+			pendingOpcode = source.getOpcode();
+			pendingArg0 = source.getArg(0);
+			pendingArg1 = source.getArg(1);
+			hasPending = true;
+			return true;
+		}
+
+		private long map(long sourceTime) {
+			double gap = Math.max(0, sourceTime - previousSourceTime);
+			previousSourceTime = sourceTime;
+
+			if (compressionThreshold > 0 && gap > compressionThreshold) {
+				gap = compressionThreshold + (gap - compressionThreshold) / compressionFactor;
+			}
+			if (maxGap > 0 && gap > maxGap) {
+				gap = maxGap;
+			}
+
+			long recordingTime = sourceTime + timeOffset;
+			while (segment < segmentEnds.length && segmentEnds[segment] <= recordingTime) {
+				segment++;
+			}
+			if (segment < segmentStarts.length && segmentStarts[segment] <= recordingTime) {
+				gap /= segmentSpeeds[segment];
+			}
+
+			profiledTime += gap;
+			return Math.round(profiledTime);
+		}
+
+		private boolean sameTick(long a, long b) {
+			return (long) (a / tickLength) == (long) (b / tickLength);
+		}
+	}
+
+	private static class Segment {
+		private final long start, end;
+		private final float speed;
+
+		private Segment(long start, long end, float speed) {
+			this.start = start;
+			this.end = end;
+			this.speed = speed;
+		}
+	}
+
+	/**
+	 * Builder for enclosing class.
+	 */
+	public static class Builder {
+		private long maxGap;
+		private long compressionThreshold;
+		private float compressionFactor;
+		private final List<Segment> segments;
+		private float moveTick;
+
+		private Builder() {
+			compressionFactor = 1;
+			segments = new ArrayList<>();
+		}
+
+		/**
+		 * Cap every gap between consecutive events.
+		 *
+		 * @param maxGap maximum gap in milliseconds, or 0 for no cap.
+		 */
+		public Builder withMaxGap(long maxGap) {
+			if (maxGap < 0) {
+				throw new IllegalArgumentException("Maximum gap must not be negative but got " + maxGap);
+			}
+			this.maxGap = maxGap;
+			return this;
+		}
+
+		/**
+		 * Shorten gaps longer than a threshold. The part of the gap above the threshold is divided by the factor.
+		 *
+		 * @param threshold gaps longer than this many milliseconds are compressed, or 0 for no compression.
+		 * @param factor compression factor applied above the threshold. Must be at least 1.
+		 */
+		public Builder withGapCompression(long threshold, float factor) {
+			if (threshold < 0 || factor < 1) {
+				throw new IllegalArgumentException("Invalid gap compression with threshold " + threshold + " and factor " + factor);
+			}
+			this.compressionThreshold = threshold;
+			this.compressionFactor = factor;
+			return this;
+		}
+
+		/**
+		 * Replay a part of the recording at a different speed. Segments should not overlap.
+		 *
+		 * @param start start of the segment in recorded time (milliseconds), inclusive.
+		 * @param end end of the segment in recorded time (milliseconds), exclusive.
+		 * @param speed speed factor of the segment. Must be positive.
+		 */
+		public Builder addSegment(long start, long end, float speed) {
+			if (end <= start || speed <= 0) {
+				throw new IllegalArgumentException("Invalid segment [" + start + ", " + end + ") with speed " + speed);
+			}
+			segments.add(new Segment(start, end, speed));
+			return this;
+		}
+
+		/**
+		 * Drop mouse moves that are followed by another move within the same replay tick.
+		 *
+		 * @param tick length of a replay tick in milliseconds, or 0 to keep all moves.
+		 */
+		public Builder withMoveTick(float tick) {
+			if (tick < 0) {
+				throw new IllegalArgumentException("Move tick must not be negative but got " + tick);
+			}
+			this.moveTick = tick;
+			return this;
+		}
+
+		public ReplayProfile build() {
+			return new ReplayProfile(this);
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package core.scheduler;
+
+/**
+ * An {@link EventCursor} that can be positioned at any event of its source.
+ */
+public interface SeekableCursor extends EventCursor {
+
+	/**
+	 * Position the cursor right before an event, so that the next call to {@link #next()} moves to that event.
+	 *
+	 * @param index index of the event, from 0 to the number of events in the source.
+	 * Seeking to the number of events positions the cursor after the last event.
+	 */
+	public void seek(long index);
+}
@@ -0,0 +1,19 @@
+package core.scheduler;
+
+/**
+ * An {@link EventSource} that can locate events by time and start iterating from any event
+ * without walking through the earlier ones.
+ */
+public interface SeekableEventSource extends EventSource {
+
+	/**
+	 * Find the index of the first event whose time is greater than or equal to the given time.
+	 *
+	 * @param time time to search for.
+	 * @return the index found, or {@link #getEventCount()} if no such event exists.
+	 */
+	public long indexOf(long time);
+
+	@Override
+	public SeekableCursor cursor();
+}
@@ -0,0 +1,206 @@
+package core.scheduler;
+
+import java.util.Arrays;
+
+/**
+ * Chronologically ordered list of device events, stored column by column in primitive arrays.
+ * Each event is a time, an {@link EventOpcode} and up to {@link #ARG_COUNT} integer arguments.
+ *
+ * Events are read by index, so iterating through the timeline does not allocate anything,
+ * and seeking to an event by time is a binary search.
+ * Events with the same time are kept in the order they were added.
+ */
+public class Timeline implements SeekableEventSource {
+
+	public static final int ARG_COUNT = 2;
+	private static final int DEFAULT_CAPACITY = 1024;
+
+	private long[] times;
+	private byte[] opcodes;
+	private int[] args;
+	private int size;
+
+	public Timeline() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public Timeline(int capacity) {
+		capacity = Math.max(capacity, 1);
+		times = new long[capacity];
+		opcodes = new byte[capacity];
+		args = new int[capacity * ARG_COUNT];
+	}
+
+	/**
+	 * Insert an event into the timeline, keeping the timeline sorted by time.
+	 * Appending at the end (the common case when recording) takes constant time.
+	 *
+	 * @param time time of the event.
+	 * @param opcode {@link EventOpcode} of the event.
+	 * @param arg0 first argument of the event.
+	 * @param arg1 second argument of the event, ignored if the opcode takes only one argument.
+	 * @return index of the inserted event.
+	 */
+	public int add(long time, byte opcode, int arg0, int arg1) {
+		ensureCapacity(size + 1);
+
+		int index = upperBound(time);
+		if (index < size) {
+			System.arraycopy(times, index, times, index + 1, size - index);
+			System.arraycopy(opcodes, index, opcodes, index + 1, size - index);
+			System.arraycopy(args, index * ARG_COUNT, args, (index + 1) * ARG_COUNT, (size - index) * ARG_COUNT);
+		}
+
+		times[index] = time;
+		opcodes[index] = opcode;
+		args[index * ARG_COUNT] = arg0;
+		args[index * ARG_COUNT + 1] = arg1;
+		size++;
+		return index;
+	}
+
+	/**
+	 * Find the first index whose event time is strictly greater than the given time.
+	 *
+	 * @param time time to search for.
+	 * @return the index found, or {@link #size()} if no such event exists.
+	 */
+	public int upperBound(long time) {
+		if (size == 0 || times[size - 1] <= time) {
+			return size;
+		}
+
+		int low = 0, high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (times[mid] <= time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Find the first index whose event time is greater than or equal to the given time.
+	 *
+	 * @param time time to search for.
+	 * @return the index found, or {@link #size()} if no such event exists.
+	 */
+	public int lowerBound(long time) {
+		int low = 0, high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (times[mid] < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public long getTime(int index) {
+		return times[index];
+	}
+
+	public byte getOpcode(int index) {
+		return opcodes[index];
+	}
+
+	/**
+	 * @param index index of the event.
+	 * @param argIndex index of the argument, from 0 to {@link #ARG_COUNT} - 1.
+	 * @return the argument of the event.
+	 */
+	public int getArg(int index, int argIndex) {
+		return args[index * ARG_COUNT + argIndex];
+	}
+
+	@Override
+	public long getEventCount() {
+		return size;
+	}
+
+	/**
+	 * @return time of the last event, or 0 if the timeline is empty.
+	 */
+	@Override
+	public long getLastTime() {
+		return size == 0 ? 0 : times[size - 1];
+	}
+
+	@Override
+	public long indexOf(long time) {
+		return lowerBound(time);
+	}
+
+	@Override
+	public SeekableCursor cursor() {
+		return new TimelineCursor();
+	}
+
+	/**
+	 * Remove all events from the timeline. The allocated capacity is kept for reuse.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= times.length) {
+			return;
+		}
+
+		int newCapacity = Math.max(capacity, times.length + (times.length >> 1));
+		times = Arrays.copyOf(times, newCapacity);
+		opcodes = Arrays.copyOf(opcodes, newCapacity);
+		args = Arrays.copyOf(args, newCapacity * ARG_COUNT);
+	}
+
+	private class TimelineCursor implements SeekableCursor {
+		private int index = -1;
+
+		@Override
+		public boolean next() {
+			if (index < size) {
+				index++;
+			}
+			return index < size;
+		}
+
+		@Override
+		public long getTime() {
+			return times[index];
+		}
+
+		@Override
+		public byte getOpcode() {
+			return opcodes[index];
+		}
+
+		@Override
+		public int getArg(int argIndex) {
+			return args[index * ARG_COUNT + argIndex];
+		}
+
+		@Override
+		public void rewind() {
+			index = -1;
+		}
+
+		@Override
+		public void seek(long index) {
+			this.index = (int) Math.max(0, Math.min(index, size)) - 1;
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package core.userDefinedTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.WeakHashMap;
+
+import argo.jdom.JsonField;
+import argo.jdom.JsonNode;
+import argo.jdom.JsonNodeFactories;
+import argo.jdom.JsonRootNode;
+import utilities.LatencyHistogram;
+
+/**
+ * Latencies from a native key event until the task it triggers starts, broken down by stage.
+ * Latencies are aggregated over all tasks and for each task. Timestamps are from {@link System#nanoTime()}.
+ */
+public class ActivationLatencies {
+
+	/**
+	 * From the native key event until the managers finish matching it.
+	 */
+	public static final int STAGE_MATCH = 0;
+	/**
+	 * From the end of matching until a thread starts executing the task.
+	 */
+	public static final int STAGE_SCHEDULE = 1;
+	/**
+	 * From the thread starting until the action of the task is called.
+	 */
+	public static final int STAGE_START = 2;
+	/**
+	 * From the native key event until the action of the task starts.
+	 */
+	public static final int STAGE_TOTAL = 3;
+	private static final String[] STAGE_NAMES = { "match", "schedule", "start", "total" };
+
+	private static final ActivationLatencies INSTANCE = new ActivationLatencies();
+
+	private final LatencyHistogram[] global;
+	private final Map<UserDefinedAction, LatencyHistogram[]> perTask; // Guarded by itself.
+
+	private ActivationLatencies() {
+		global = newStages();
+		perTask = new WeakHashMap<>();
+	}
+
+	/**
+	 * @return the latencies of all tasks triggered in this process.
+	 */
+	public static ActivationLatencies getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Record the timestamps of one task triggered by a key event.
+	 *
+	 * @param action the task triggered.
+	 * @param hookTime when the native key event happened.
+	 * @param matchTime when the managers finished matching the event.
+	 * @param threadStartTime when a thread started executing the task.
+	 * @param actionStartTime right before the action of the task was called.
+	 */
+	void record(UserDefinedAction action, long hookTime, long matchTime, long threadStartTime, long actionStartTime) {
+		LatencyHistogram[] task;
+		synchronized (perTask) {
+			task = perTask.get(action);
+			if (task == null) {
+				task = newStages();
+				perTask.put(action, task);
+			}
+		}
+
+		record(global, hookTime, matchTime, threadStartTime, actionStartTime);
+		record(task, hookTime, matchTime, threadStartTime, actionStartTime);
+	}
+
+	/**
+	 * @param stage one of the STAGE_* constants.
+	 * @return a copy of the latencies of a stage over all tasks.
+	 */
+	public LatencyHistogram getGlobal(int stage) {
+		return copy(global[stage]);
+	}
+
+	/**
+	 * @param action the task to get the latencies of.
+	 * @param stage one of the STAGE_* constants.
+	 * @return a copy of the latencies of a stage for the task. This is empty if the task has never been triggered.
+	 */
+	public LatencyHistogram getTask(UserDefinedAction action, int stage) {
+		synchronized (perTask) {
+			LatencyHistogram[] task = perTask.get(action);
+			return task == null ? new LatencyHistogram() : copy(task[stage]);
+		}
+	}
+
+	/**
+	 * Forget all recorded latencies.
+	 */
+	public void reset() {
+		synchronized (perTask) {
+			perTask.clear();
+		}
+		for (LatencyHistogram histogram : global) {
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * @param stage one of the STAGE_* constants.
+	 * @return a short name of the stage.
+	 */
+	public static String getStageName(int stage) {
+		return STAGE_NAMES[stage];
+	}
+
+	/**
+	 * @return the global latencies and the latencies of each triggered task, in microseconds.
+	 */
+	public JsonRootNode jsonize() {
+		List<JsonNode> tasks = new ArrayList<>();
+		synchronized (perTask) {
+			for (Entry<UserDefinedAction, LatencyHistogram[]> entry : perTask.entrySet()) {
+				String name = entry.getKey().getName() == null ? "" : entry.getKey().getName();
+				tasks.add(JsonNodeFactories.object(
+						JsonNodeFactories.field("name", JsonNodeFactories.string(name)),
+						JsonNodeFactories.field("latency", jsonize(entry.getValue()))));
+			}
+		}
+
+		return JsonNodeFactories.object(
+				JsonNodeFactories.field("global", jsonize(global)),
+				JsonNodeFactories.field("tasks", JsonNodeFactories.array(tasks)));
+	}
+
+	private static JsonNode jsonize(LatencyHistogram[] stages) {
+		List<JsonField> fields = new ArrayList<>();
+		for (int stage = 0; stage < stages.length; stage++) {
+			LatencyHistogram histogram = copy(stages[stage]);
+			fields.add(JsonNodeFactories.field(STAGE_NAMES[stage], JsonNodeFactories.object(
+					JsonNodeFactories.field("count", JsonNodeFactories.number(histogram.getCount())),
+					JsonNodeFactories.field("p50_us", JsonNodeFactories.number(histogram.getPercentile(50) / 1000)),
+					JsonNodeFactories.field("p99_us", JsonNodeFactories.number(histogram.getPercentile(99) / 1000)),
+					JsonNodeFactories.field("max_us", JsonNodeFactories.number(histogram.getMax() / 1000)))));
+		}
+		return JsonNodeFactories.object(fields);
+	}
+
+	private static void record(LatencyHistogram[] stages, long hookTime, long matchTime, long threadStartTime, long actionStartTime) {
+		stages[STAGE_MATCH].record(matchTime - hookTime);
+		stages[STAGE_SCHEDULE].record(threadStartTime - matchTime);
+		stages[STAGE_START].record(actionStartTime - threadStartTime);
+		stages[STAGE_TOTAL].record(actionStartTime - hookTime);
+	}
+
+	private static LatencyHistogram[] newStages() {
+		LatencyHistogram[] stages = new LatencyHistogram[STAGE_NAMES.length];
+		for (int i = 0; i < stages.length; i++) {
+			stages[i] = new LatencyHistogram();
+		}
+		return stages;
+	}
+
+	private static LatencyHistogram copy(LatencyHistogram histogram) {
+		LatencyHistogram output = new LatencyHistogram();
+		output.merge(histogram);
+		return output;
+	}
+}
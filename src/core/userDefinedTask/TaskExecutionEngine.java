@@ -0,0 +1,347 @@
+package core.userDefinedTask;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import core.controller.Core;
+
+/**
+ * Executes triggered tasks on a bounded pool of threads. The pool grows as needed up to its maximum size,
+ * after which executions wait for a thread. Executions waiting for a thread or dropped are logged.
+ *
+ * What happens when a task is triggered while a previous execution of the same task is still running or waiting
+ * depends on the execution policy of the task (see {@link UserDefinedAction#getExecutionPolicy()}).
+ */
+public class TaskExecutionEngine {
+
+	private static final Logger LOGGER = Logger.getLogger(TaskExecutionEngine.class.getName());
+
+	/**
+	 * Start a new execution regardless of previous executions.
+	 */
+	public static final int POLICY_PARALLEL = 0;
+	/**
+	 * Ignore the trigger if the task is already running or waiting to run.
+	 */
+	public static final int POLICY_DROP_IF_RUNNING = 1;
+	/**
+	 * Run the task again once the previous executions are done.
+	 */
+	public static final int POLICY_QUEUE = 2;
+	/**
+	 * Interrupt the previous executions and start a new one.
+	 */
+	public static final int POLICY_CANCEL_AND_REPLACE = 3;
+
+	private static final String[] POLICY_NAMES = { "Run in parallel", "Drop if running", "Queue", "Cancel and replace" };
+
+	private static final int DEFAULT_MAX_THREADS = 256;
+	private static final int DEFAULT_MAX_QUEUED = 1024;
+	private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+	private final int maxThreads;
+	private final ThreadPoolExecutor executor;
+	private final Map<UserDefinedAction, TaskState> states; // Guarded by itself.
+
+	private final AtomicInteger running;
+	private final AtomicInteger queued;
+	private final AtomicLong dropped;
+
+	public TaskExecutionEngine() {
+		this(DEFAULT_MAX_THREADS, DEFAULT_MAX_QUEUED);
+	}
+
+	/**
+	 * @param maxThreads maximum number of tasks executing at the same time.
+	 * @param maxQueued maximum number of executions waiting for a thread. Further executions are dropped.
+	 */
+	public TaskExecutionEngine(int maxThreads, int maxQueued) {
+		if (maxThreads <= 0 || maxQueued <= 0) {
+			throw new IllegalArgumentException("Invalid execution engine size " + maxThreads + " threads and " + maxQueued + " queued");
+		}
+
+		this.maxThreads = maxThreads;
+		final AtomicInteger threadCount = new AtomicInteger();
+		executor = new ThreadPoolExecutor(maxThreads, maxThreads, IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(maxQueued),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						return new Thread(r, "Task execution " + threadCount.incrementAndGet());
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+
+		states = new IdentityHashMap<>();
+		running = new AtomicInteger();
+		queued = new AtomicInteger();
+		dropped = new AtomicLong();
+	}
+
+	/**
+	 * Execute a triggered task according to its execution policy.
+	 *
+	 * @param action the task to execute.
+	 * @return whether the task was executed or scheduled. This is false if the trigger was dropped.
+	 */
+	public boolean execute(UserDefinedAction action) {
+		return execute(action, false, 0, 0);
+	}
+
+	/**
+	 * Execute a task triggered by a key event according to its execution policy, and record the latency from the key
+	 * event until the task starts in {@link ActivationLatencies}. Latency is not recorded for executions that wait for
+	 * a previous execution of the same task ({@link #POLICY_QUEUE}).
+	 *
+	 * @param action the task to execute.
+	 * @param hookTime when the native key event happened, on the {@link System#nanoTime()} scale.
+	 * @param matchTime when the key event finished matching, from {@link System#nanoTime()}.
+	 * @return whether the task was executed or scheduled. This is false if the trigger was dropped.
+	 */
+	public boolean execute(UserDefinedAction action, long hookTime, long matchTime) {
+		return execute(action, true, hookTime, matchTime);
+	}
+
+	private boolean execute(UserDefinedAction action, boolean timed, long hookTime, long matchTime) {
+		synchronized (states) {
+			TaskState state = states.get(action);
+			if (state == null) {
+				state = new TaskState();
+				states.put(action, state);
+			}
+
+			if (!state.executions.isEmpty()) {
+				switch (action.getExecutionPolicy()) {
+				case POLICY_DROP_IF_RUNNING:
+					dropped.incrementAndGet();
+					LOGGER.fine("Task " + action.getName() + " is already running. Dropping trigger.");
+					return false;
+				case POLICY_QUEUE:
+					state.pending++;
+					queued.incrementAndGet();
+					return true;
+				case POLICY_CANCEL_AND_REPLACE:
+					cancelAll(state);
+					// Cancelled executions finish synchronously and may have forgotten the state, which is still used below.
+					states.put(action, state);
+					break;
+				case POLICY_PARALLEL:
+				default:
+					break;
+				}
+			}
+
+			boolean submitted = submit(new Execution(action, state, timed, hookTime, matchTime));
+			forgetIfIdle(action, state);
+			return submitted;
+		}
+	}
+
+	/**
+	 * Interrupt all executing tasks and forget all waiting executions.
+	 */
+	public void haltAll() {
+		synchronized (states) {
+			for (TaskState state : new ArrayList<>(states.values())) {
+				queued.addAndGet(-state.pending);
+				state.pending = 0;
+				cancelAll(state);
+			}
+		}
+	}
+
+	/**
+	 * @param policy one of the POLICY_* constants.
+	 * @return a short name of the policy.
+	 */
+	public static String getPolicyName(int policy) {
+		return POLICY_NAMES[policy];
+	}
+
+	/**
+	 * @return names of all policies, indexed by policy.
+	 */
+	public static String[] getPolicyNames() {
+		return POLICY_NAMES.clone();
+	}
+
+	/**
+	 * @return number of tasks currently executing.
+	 */
+	public int getRunningCount() {
+		return running.get();
+	}
+
+	/**
+	 * @return number of executions waiting for a thread or for a previous execution of the same task.
+	 */
+	public int getQueuedCount() {
+		return queued.get();
+	}
+
+	/**
+	 * @return number of triggers dropped since this engine was created, either because of
+	 * {@link #POLICY_DROP_IF_RUNNING} or because too many executions were waiting.
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * Submit one execution of a task to the pool. Must be called with the states lock held.
+	 */
+	private boolean submit(Execution execution) {
+		UserDefinedAction action = execution.action;
+		TaskState state = execution.state;
+		if (running.get() >= maxThreads) {
+			LOGGER.warning("All " + maxThreads + " task threads are busy. Execution of task " + action.getName() + " waits for a thread.");
+		}
+		queued.incrementAndGet();
+		try {
+			executor.execute(execution);
+		} catch (RejectedExecutionException e) {
+			queued.decrementAndGet();
+			dropped.incrementAndGet();
+			LOGGER.warning("Too many task executions waiting. Dropping execution of task " + action.getName());
+			return false;
+		}
+
+		state.executions.add(execution);
+		return true;
+	}
+
+	/**
+	 * Interrupt the executions of a task. Must be called with the states lock held.
+	 */
+	private void cancelAll(TaskState state) {
+		// Cancelling removes the execution from the list, so iterate on a copy.
+		for (Execution execution : new ArrayList<>(state.executions)) {
+			execution.cancel(true);
+		}
+	}
+
+	/**
+	 * Called when an execution ends, whether it completed, failed or was cancelled.
+	 */
+	private void finished(Execution execution) {
+		synchronized (states) {
+			TaskState state = execution.state;
+			state.executions.remove(execution);
+			if (state.pending > 0 && state.executions.isEmpty()) {
+				state.pending--;
+				queued.decrementAndGet();
+				submit(new Execution(execution.action, state, false, 0, 0));
+			}
+
+			forgetIfIdle(execution.action, state);
+		}
+	}
+
+	/**
+	 * Remove the state of a task if it is the current one and nothing of the task is running or waiting.
+	 * Must be called with the states lock held.
+	 */
+	private void forgetIfIdle(UserDefinedAction action, TaskState state) {
+		if (state.executions.isEmpty() && state.pending == 0 && states.get(action) == state) {
+			states.remove(action);
+		}
+	}
+
+	/**
+	 * Executions of one task that are running or waiting.
+	 */
+	private static class TaskState {
+		private final List<Execution> executions = new ArrayList<>(); // Submitted to the pool.
+		private int pending; // Waiting for the submitted executions to finish.
+	}
+
+	private class Execution extends FutureTask<Void> {
+		private final UserDefinedAction action;
+		private final TaskState state;
+		private final AtomicBoolean dequeued;
+		private final ActionRunner runner;
+
+		private Execution(UserDefinedAction action, TaskState state, boolean timed, long hookTime, long matchTime) {
+			this(action, state, new ActionRunner(action, timed, hookTime, matchTime));
+		}
+
+		private Execution(UserDefinedAction action, TaskState state, ActionRunner runner) {
+			super(runner, null);
+			this.action = action;
+			this.state = state;
+			this.dequeued = new AtomicBoolean();
+			this.runner = runner;
+		}
+
+		@Override
+		public void run() {
+			runner.threadStartTime = System.nanoTime();
+			dequeue();
+			running.incrementAndGet();
+			try {
+				super.run();
+			} finally {
+				running.decrementAndGet();
+			}
+		}
+
+		@Override
+		protected void done() {
+			dequeue(); // In case this is cancelled before starting.
+			finished(this);
+		}
+
+		private void dequeue() {
+			if (dequeued.compareAndSet(false, true)) {
+				queued.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Runs the action of a task. This is only called if the execution was not cancelled before starting.
+	 */
+	private static class ActionRunner implements Runnable {
+		private final UserDefinedAction action;
+		private final boolean timed; // Whether to record the latency from the key event below.
+		private final long hookTime;
+		private final long matchTime;
+		private long threadStartTime; // Set by the executing thread before running.
+
+		private ActionRunner(UserDefinedAction action, boolean timed, long hookTime, long matchTime) {
+			this.action = action;
+			this.timed = timed;
+			this.hookTime = hookTime;
+			this.matchTime = matchTime;
+		}
+
+		@Override
+		public void run() {
+			if (timed) {
+				ActivationLatencies.getInstance().record(action, hookTime, matchTime, threadStartTime, System.nanoTime());
+			}
+
+			try {
+				action.trackedAction(Core.getInstance());
+			} catch (InterruptedException e) {
+				LOGGER.info("Task ended prematurely");
+			} catch (Exception e) {
+				String name = action.getName() == null ? "" : action.getName();
+				LOGGER.log(Level.WARNING, "Exception while executing task " + name, e);
+			}
+		}
+	}
+}
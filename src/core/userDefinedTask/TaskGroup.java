@@ -1,6 +1,7 @@
 package core.userDefinedTask;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
@@ -54,18 +55,23 @@ public class TaskGroup implements IJsonable {
 			return;
 		} else {
 			if (enabled) {
+				List<UserDefinedAction> enabledTasks = new ArrayList<>();
 				for (UserDefinedAction task : tasks) {
 					if (task.isEnabled()) {
-						Set<UserDefinedAction> collisions = keyManager.isTaskRegistered(task);
-						if (collisions.isEmpty()) {
-							keyManager.registerTask(task);
-						} else { // Revert everything and exit
-							unregisterAll(keyManager);
-							GlobalEventsManager.showCollisionWarning(null, collisions);
-							return;
-						}
+						enabledTasks.add(task);
 					}
 				}
+
+				Set<UserDefinedAction> skipped = keyManager.registerAllTasks(enabledTasks);
+				if (!skipped.isEmpty()) { // Revert everything and exit
+					Set<UserDefinedAction> collisions = new HashSet<>();
+					for (UserDefinedAction task : skipped) {
+						collisions.addAll(keyManager.isTaskRegistered(task));
+					}
+					unregisterAll(keyManager);
+					GlobalEventsManager.showCollisionWarning(null, collisions);
+					return;
+				}
 			} else {
 				unregisterAll(keyManager);
 			}
@@ -30,6 +30,7 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
 	protected String sourcePath;
 	protected Language compiler;
 	protected boolean enabled;
+	private int executionPolicy;
 
 	protected TaskActivation invoker;
 	protected KeyChain invokingKeyChain;
@@ -45,6 +46,7 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
 		invokingKeyChain = new KeyChain();
 		statistics = new UsageStatistics();
 		enabled = true;
+		executionPolicy = TaskExecutionEngine.POLICY_PARALLEL;
 	}
 
 	/**
@@ -140,6 +142,22 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
 		this.enabled = enabled;
 	}
 
+	/**
+	 * @return what happens when this task is triggered while it is already running.
+	 * This is one of the POLICY_* constants of {@link TaskExecutionEngine}.
+	 */
+	public final int getExecutionPolicy() {
+		return executionPolicy;
+	}
+
+	public final void setExecutionPolicy(int executionPolicy) {
+		if (executionPolicy < TaskExecutionEngine.POLICY_PARALLEL || executionPolicy > TaskExecutionEngine.POLICY_CANCEL_AND_REPLACE) {
+			LOGGER.warning("Unknown execution policy " + executionPolicy + ". Keeping policy " + this.executionPolicy + ".");
+			return;
+		}
+		this.executionPolicy = executionPolicy;
+	}
+
 	public void setActivation(TaskActivation activation) {
 		this.activation = activation;
 	}
@@ -156,6 +174,7 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
 		setName(other.getName());
 		activation.copy(other.activation);
 		statistics = other.statistics;
+		executionPolicy = other.executionPolicy;
 	}
 
 	/**
@@ -227,6 +246,7 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
 		name = other.name;
 		activation.copy(other.activation);
 		enabled = other.enabled;
+		executionPolicy = other.executionPolicy;
 	}
 
 	/***********************************************************************/
@@ -238,6 +258,7 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
 				JsonNodeFactories.field("name", JsonNodeFactories.string(name)),
 				JsonNodeFactories.field("activation", activation.jsonize()),
 				JsonNodeFactories.field("enabled", JsonNodeFactories.booleanNode(enabled)),
+				JsonNodeFactories.field("execution_policy", JsonNodeFactories.number(executionPolicy)),
 				JsonNodeFactories.field("statistics", statistics.jsonize())
 				);
 	}
@@ -288,6 +309,9 @@ public abstract class UserDefinedAction implements IJsonable, ILoggable {
 			output.name = name;
 			output.activation = activation;
 			output.enabled = enabled;
+			if (node.isNumberValue("execution_policy")) {
+				output.setExecutionPolicy(Integer.parseInt(node.getNumberValue("execution_policy")));
+			}
 
 			return output;
 		} catch (Exception e) {
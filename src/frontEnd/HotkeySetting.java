@@ -145,6 +145,7 @@ public class HotkeySetting extends JFrame {
 				}
 
 				backEnd.config.setMouseGestureActivationKey(newKeyChain.getKeyStrokes().get(0).getKey());
+				backEnd.keysManager.onActivationConfigChanged();
 				tfMouseGestureActivation.setText(newKeyChain.toString());
 			}
 		});
@@ -18,8 +18,13 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import javax.swing.BoxLayout;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
+import javax.swing.JPanel;
 import javax.swing.JRadioButtonMenuItem;
+import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
 
 import org.jnativehook.GlobalScreen;
@@ -39,7 +44,12 @@ import core.languageHandler.compiler.DynamicCompilerOutput;
 import core.languageHandler.compiler.PythonRemoteCompiler;
 import core.languageHandler.sourceGenerator.AbstractSourceGenerator;
 import core.recorder.Recorder;
+import core.recorder.RecordingLibrary;
+import core.scheduler.ReplayProfile;
+import core.scheduler.SeekableEventSource;
+import core.userDefinedTask.ActivationLatencies;
 import core.userDefinedTask.TaskGroup;
+import core.userDefinedTask.TaskExecutionEngine;
 import core.userDefinedTask.TaskInvoker;
 import core.userDefinedTask.TaskSourceManager;
 import core.userDefinedTask.UserDefinedAction;
@@ -47,6 +57,7 @@ import staticResources.BootStrapResources;
 import utilities.DateUtility;
 import utilities.FileUtility;
 import utilities.Function;
+import utilities.LatencyHistogram;
 import utilities.NumberUtility;
 import utilities.OSIdentifier;
 import utilities.Pair;
@@ -63,6 +74,7 @@ public class MainBackEndHolder {
 	protected Thread compiledExecutor;
 
 	protected Recorder recorder;
+	protected final RecordingLibrary recordingLibrary;
 
 	protected UserDefinedAction customFunction;
 
@@ -94,6 +106,7 @@ public class MainBackEndHolder {
 		taskInvoker = new TaskInvoker(taskGroups);
 		keysManager = new GlobalEventsManager(config);
 		recorder = new Recorder(keysManager);
+		recordingLibrary = new RecordingLibrary();
 
 		switchRecord = new UserDefinedAction() {
 			@Override
@@ -252,6 +265,7 @@ public class MainBackEndHolder {
 
 		if (!isRecording) { // Start record
 			recorder.clear();
+			recorder.setFilterPipeline(config.newRecordingFilterPipeline());
 			recorder.record();
 			isRecording = true;
 			main.bRecord.setIcon(BootStrapResources.STOP);
@@ -286,14 +300,7 @@ public class MainBackEndHolder {
 				return;
 			}
 
-			isReplaying = true;
-			SwingUtilities.invokeLater(new Runnable() {
-				@Override
-				public void run() {
-					main.bReplay.setIcon(BootStrapResources.STOP);
-					setEnableRecord(false);
-				}
-			});
+			setReplaying();
 
 			String repeatText = main.tfRepeatCount.getText();
 			String delayText = main.tfRepeatDelay.getText();
@@ -301,15 +308,276 @@ public class MainBackEndHolder {
 				long repeatCount = Long.parseLong(repeatText);
 				long delay = Long.parseLong(delayText);
 
-				recorder.replay(repeatCount, delay, new Function<Void, Void>() {
-					@Override
-					public Void apply(Void r) {
-						switchReplay();
-						return null;
-					}
-				}, 5, false);
+				recorder.replay(repeatCount, delay, replayFinished(), 5, false);
+			}
+		}
+	}
+
+	/**
+	 * Ask for a time interval of the current recording and replay only the events within it,
+	 * with the repeat count and delay of the main window.
+	 */
+	protected void promptReplayRange() {
+		if (isRecording || isReplaying) {
+			return;
+		}
+
+		String[] inputs = SwingUtil.OptionPaneUtil.getInputs(new String[] {"From (ms)", "To (ms, empty for the end)"});
+		if (inputs == null) {
+			return;
+		}
+		String fromText = inputs[0].trim();
+		String toText = inputs[1].trim();
+		String repeatText = main.tfRepeatCount.getText();
+		String delayText = main.tfRepeatDelay.getText();
+		if (!NumberUtility.isNonNegativeInteger(fromText) || !(toText.isEmpty() || NumberUtility.isNonNegativeInteger(toText))
+				|| !NumberUtility.isPositiveInteger(repeatText) || !NumberUtility.isNonNegativeInteger(delayText)) {
+			JOptionPane.showMessageDialog(main, "Invalid replay range or repeat settings.", "Replay range", JOptionPane.WARNING_MESSAGE);
+			return;
+		}
+		if (!applySpeedup()) {
+			return;
+		}
+
+		long from = Long.parseLong(fromText);
+		long to = toText.isEmpty() ? Long.MAX_VALUE : Long.parseLong(toText);
+		setReplaying();
+		recorder.replayRange(from, to, Long.parseLong(repeatText), Long.parseLong(delayText), replayFinished(), 5, false);
+	}
+
+	/**
+	 * Ask for an event of the current recording and replay once from that event, for example to resume
+	 * a replay that was stopped part way through.
+	 */
+	protected void promptReplayFrom() {
+		if (isRecording || isReplaying) {
+			return;
+		}
+
+		long eventCount = recorder.getEventCount();
+		if (eventCount == 0) {
+			JOptionPane.showMessageDialog(main, "Nothing has been recorded.", "Replay from event", JOptionPane.WARNING_MESSAGE);
+			return;
+		}
+
+		String[] inputs = SwingUtil.OptionPaneUtil.getInputs(new String[] {"First event (0 to " + (eventCount - 1) + ")"});
+		if (inputs == null) {
+			return;
+		}
+		String indexText = inputs[0].trim();
+		if (!NumberUtility.isNonNegativeInteger(indexText) || Long.parseLong(indexText) >= eventCount) {
+			JOptionPane.showMessageDialog(main, "Invalid event " + indexText + ".", "Replay from event", JOptionPane.WARNING_MESSAGE);
+			return;
+		}
+		if (!applySpeedup()) {
+			return;
+		}
+
+		setReplaying();
+		recorder.replayFrom(Long.parseLong(indexText), replayFinished(), 5, false);
+	}
+
+	/**
+	 * Show that a replay started. {@link #switchReplay()} stops it.
+	 */
+	private void setReplaying() {
+		isReplaying = true;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				main.bReplay.setIcon(BootStrapResources.STOP);
+				setEnableRecord(false);
+			}
+		});
+	}
+
+	private Function<Void, Void> replayFinished() {
+		return new Function<Void, Void>() {
+			@Override
+			public Void apply(Void r) {
+				switchReplay();
+				return null;
+			}
+		};
+	}
+
+	/**
+	 * Save the current recording into the recording library.
+	 *
+	 * @param name name of the recording in the library.
+	 * @return if the recording was saved.
+	 */
+	protected boolean saveRecording(String name) {
+		if (isRecording) {
+			LOGGER.warning("Cannot save recording while recording.");
+			return false;
+		}
+		return recordingLibrary.save(name, recorder.getRecording());
+	}
+
+	/**
+	 * Load a recording from the recording library as the current recording, so that it can be replayed.
+	 *
+	 * @param name name of the recording in the library.
+	 * @return if the recording was loaded.
+	 */
+	protected boolean loadRecording(String name) {
+		if (isRecording || isReplaying) {
+			LOGGER.warning("Cannot load recording while recording or replaying.");
+			return false;
+		}
+
+		SeekableEventSource recording = recordingLibrary.get(name);
+		return recording != null && recorder.loadRecording(recording);
+	}
+
+	/**
+	 * Ask for a name and save the current recording into the recording library under it.
+	 */
+	protected void promptSaveRecording() {
+		if (recorder.getRecording().getEventCount() == 0) {
+			JOptionPane.showMessageDialog(main, "Nothing has been recorded.", "Save recording", JOptionPane.WARNING_MESSAGE);
+			return;
+		}
+
+		String[] name = SwingUtil.OptionPaneUtil.getInputs(new String[] {"Recording name"});
+		if (name == null) {
+			return;
+		}
+		if (!saveRecording(name[0].trim())) {
+			JOptionPane.showMessageDialog(main, "Unable to save recording " + name[0]
+					+ ". Names may only contain letters, digits, spaces, '_' and '-'.", "Save recording", JOptionPane.WARNING_MESSAGE);
+		}
+	}
+
+	/**
+	 * Ask for a recording in the recording library and load it as the current recording,
+	 * so that it can be replayed with the replay button or the replay hotkey.
+	 */
+	protected void promptLoadRecording() {
+		List<String> names = recordingLibrary.getNames();
+		if (names.isEmpty()) {
+			JOptionPane.showMessageDialog(main, "No recording has been saved.", "Load recording", JOptionPane.INFORMATION_MESSAGE);
+			return;
+		}
+
+		int selected = SwingUtil.DialogUtil.getSelection(main, "Select recording", names.toArray(new String[names.size()]), 0);
+		if (selected == -1) {
+			return;
+		}
+		if (!loadRecording(names.get(selected))) {
+			JOptionPane.showMessageDialog(main, "Unable to load recording " + names.get(selected) + ".", "Load recording", JOptionPane.WARNING_MESSAGE);
+			return;
+		}
+		setEnableReplay(true);
+	}
+
+	/**
+	 * Ask for the replay profile to use in replay and source generation.
+	 * Leaving every field empty replays events as recorded.
+	 */
+	protected void promptReplayProfile() {
+		if (isRecording || isReplaying) {
+			JOptionPane.showMessageDialog(main, "Stop recording and replaying first.", "Replay profile", JOptionPane.WARNING_MESSAGE);
+			return;
+		}
+
+		String[] inputs = SwingUtil.OptionPaneUtil.getInputs(new String[] {
+				"Maximum gap between events (ms)",
+				"Compress gaps longer than (ms)",
+				"Gap compression factor",
+				"Drop mouse moves within (ms)",
+				"Speed segments (start-end:speed in recorded ms, comma separated)"});
+		if (inputs == null) {
+			return;
+		}
+
+		ReplayProfile profile;
+		try {
+			long maxGap = inputs[0].trim().isEmpty() ? 0 : Long.parseLong(inputs[0].trim());
+			long compressionThreshold = inputs[1].trim().isEmpty() ? 0 : Long.parseLong(inputs[1].trim());
+			float compressionFactor = inputs[2].trim().isEmpty() ? 1 : Float.parseFloat(inputs[2].trim());
+			float moveTick = inputs[3].trim().isEmpty() ? 0 : Float.parseFloat(inputs[3].trim());
+
+			ReplayProfile.Builder builder = ReplayProfile.newBuilder()
+					.withMaxGap(maxGap)
+					.withGapCompression(compressionThreshold, compressionFactor)
+					.withMoveTick(moveTick);
+			boolean hasSegment = false;
+			for (String segment : inputs[4].split(",")) {
+				segment = segment.trim();
+				if (segment.isEmpty()) {
+					continue;
+				}
+
+				int dash = segment.indexOf('-');
+				int colon = segment.indexOf(':');
+				if (dash <= 0 || colon <= dash) {
+					throw new IllegalArgumentException("Speed segment " + segment + " is not in the form start-end:speed");
+				}
+				builder.addSegment(Long.parseLong(segment.substring(0, dash).trim()),
+						Long.parseLong(segment.substring(dash + 1, colon).trim()),
+						Float.parseFloat(segment.substring(colon + 1).trim()));
+				hasSegment = true;
 			}
+
+			if (maxGap == 0 && (compressionThreshold == 0 || compressionFactor == 1) && moveTick == 0 && !hasSegment) {
+				profile = null;
+			} else {
+				profile = builder.build();
+			}
+		} catch (IllegalArgumentException e) { // Also covers NumberFormatException.
+			JOptionPane.showMessageDialog(main, "Invalid replay profile: " + e.getMessage(), "Replay profile", JOptionPane.WARNING_MESSAGE);
+			return;
 		}
+
+		recorder.setReplayProfile(profile);
+	}
+
+	/**
+	 * Let the user choose which filters are applied to events while recording.
+	 * The filters apply from the next recording on.
+	 */
+	protected void promptRecordingFilters() {
+		JPanel panel = new JPanel();
+		panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+
+		JCheckBox cbRemoveRedundant = new JCheckBox("Remove redundant events", config.isRecordingRemoveRedundantEvents());
+		JTextField tfTolerance = new JTextField(config.getRecordingMouseMoveTolerance() + "");
+		JTextField tfMaxInterval = new JTextField(config.getRecordingMouseMoveMaxIntervalMs() + "");
+		JTextField tfQuantum = new JTextField(config.getRecordingTimeQuantumMs() + "");
+		panel.add(cbRemoveRedundant);
+		panel.add(new JLabel("Decimate mouse moves within (pixels, 0 to keep all moves)"));
+		panel.add(tfTolerance);
+		panel.add(new JLabel("Always keep a mouse move every (ms)"));
+		panel.add(tfMaxInterval);
+		panel.add(new JLabel("Round event times to (ms, 0 to keep exact times)"));
+		panel.add(tfQuantum);
+
+		if (!SwingUtil.DialogUtil.genericInput("Recording filters", panel)) {
+			return;
+		}
+
+		int tolerance;
+		long maxInterval, quantum;
+		try {
+			tolerance = Integer.parseInt(tfTolerance.getText().trim());
+			maxInterval = Long.parseLong(tfMaxInterval.getText().trim());
+			quantum = Long.parseLong(tfQuantum.getText().trim());
+		} catch (NumberFormatException e) {
+			JOptionPane.showMessageDialog(main, "Invalid number: " + e.getMessage(), "Recording filters", JOptionPane.WARNING_MESSAGE);
+			return;
+		}
+		if (tolerance < 0 || maxInterval <= 0 || quantum < 0) {
+			JOptionPane.showMessageDialog(main, "Values must not be negative, and the mouse move interval must be positive.",
+					"Recording filters", JOptionPane.WARNING_MESSAGE);
+			return;
+		}
+
+		config.setRecordingRemoveRedundantEvents(cbRemoveRedundant.isSelected());
+		config.setRecordingMouseMoveTolerance(tolerance);
+		config.setRecordingMouseMoveMaxIntervalMs(maxInterval);
+		config.setRecordingTimeQuantumMs(quantum);
 	}
 
 	protected void switchRunningCompiledAction() {
@@ -372,12 +640,13 @@ public class MainBackEndHolder {
 				continue;
 			}
 
+			List<UserDefinedAction> enabledTasks = new ArrayList<>();
 			for (UserDefinedAction task : group.getTasks()) {
-				Set<UserDefinedAction> collisions = keysManager.isTaskRegistered(task);
-				if (task.isEnabled() && (collisions.isEmpty())) {
-					keysManager.registerTask(task);
+				if (task.isEnabled()) {
+					enabledTasks.add(task);
 				}
 			}
+			keysManager.registerAllTasks(enabledTasks);
 		}
 	}
 
@@ -391,19 +660,14 @@ public class MainBackEndHolder {
 	 * @return whether operation succeeds (i.e. no activation collision).
 	 */
 	public boolean addPopulatedTaskGroup(TaskGroup group) {
-		boolean result = true;
 		taskGroups.add(group);
-		for (UserDefinedAction action : group.getTasks()) {
-			Set<UserDefinedAction> collisions = keysManager.isActivationRegistered(action.getActivation());
-			if (collisions.isEmpty()) {
-				keysManager.registerTask(action);
-			} else {
-				result &= false;
-				String collisionNames = StringUtilities.join(collisions.stream().map(t -> t.getName()).collect(Collectors.toList()), ", ");
-				LOGGER.log(Level.WARNING, "Cannot register action " + action.getName() + ". There are collisions with " + collisionNames + " in hotkeys!");
-			}
+		Set<UserDefinedAction> skipped = keysManager.registerAllTasks(group.getTasks());
+		for (UserDefinedAction action : skipped) {
+			Set<UserDefinedAction> collisions = keysManager.isTaskRegistered(action);
+			String collisionNames = StringUtilities.join(collisions.stream().map(t -> t.getName()).collect(Collectors.toList()), ", ");
+			LOGGER.log(Level.WARNING, "Cannot register action " + action.getName() + ". There are collisions with " + collisionNames + " in hotkeys!");
 		}
-		return result;
+		return skipped.isEmpty();
 	}
 
 	protected void removeTaskGroup(int index) {
@@ -639,6 +903,19 @@ public class MainBackEndHolder {
 		main.tTasks.setValueAt(action.isEnabled(), row, MainFrame.TTASK_COLUMN_ENABLED);
 	}
 
+	protected void changeExecutionPolicyTask(int row) {
+		final UserDefinedAction action = currentGroup.getTasks().get(row);
+		int policy = SwingUtil.DialogUtil.getSelection(main, "What to do when the task is triggered while it is running",
+				TaskExecutionEngine.getPolicyNames(), action.getExecutionPolicy());
+		if (policy < 0) {
+			return;
+		}
+
+		action.setExecutionPolicy(policy);
+		main.tTasks.setValueAt(TaskExecutionEngine.getPolicyName(action.getExecutionPolicy()), row, MainFrame.TTASK_COLUMN_EXECUTION_POLICY);
+		writeConfigFile();
+	}
+
 	protected void renderTasks() {
 		main.bTaskGroup.setText(currentGroup.getName());
 		SwingUtil.TableUtil.setRowNumber(main.tTasks, currentGroup.getTasks().size());
@@ -658,6 +935,7 @@ public class MainBackEndHolder {
 			main.tTasks.setValueAt(task.isEnabled(), row, MainFrame.TTASK_COLUMN_ENABLED);
 			main.tTasks.setValueAt(task.getStatistics().getCount(), row, MainFrame.TTASK_COLUMN_USE_COUNT);
 			main.tTasks.setValueAt(DateUtility.calendarToDateString(task.getStatistics().getLastUse()), row, MainFrame.TTASK_COLUMN_LAST_USE);
+			main.tTasks.setValueAt(TaskExecutionEngine.getPolicyName(task.getExecutionPolicy()), row, MainFrame.TTASK_COLUMN_EXECUTION_POLICY);
 			row++;
 		}
 	}
@@ -681,6 +959,10 @@ public class MainBackEndHolder {
 			if (e.getKeyCode() == KeyEvent.VK_ENTER) {
 				switchEnableTask(row);
 			}
+		} else if (column == MainFrame.TTASK_COLUMN_EXECUTION_POLICY && row >= 0) {
+			if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+				changeExecutionPolicyTask(row);
+			}
 		}
 
 		loadSource(row);
@@ -695,6 +977,8 @@ public class MainBackEndHolder {
 			changeHotkeyTask(row);
 		} else if (column == MainFrame.TTASK_COLUMN_ENABLED && row >= 0) {
 			switchEnableTask(row);
+		} else if (column == MainFrame.TTASK_COLUMN_EXECUTION_POLICY && row >= 0) {
+			changeExecutionPolicyTask(row);
 		}
 
 		loadSource(row);
@@ -946,6 +1230,7 @@ public class MainBackEndHolder {
 		main.cbmiUseTrayIcon.setSelected(config.isUseTrayIcon());
 		main.cbmiHaltByKey.setSelected(config.isEnabledHaltingKeyPressed());
 		main.cbmiExecuteOnReleased.setSelected(config.isExecuteOnKeyReleased());
+		main.cbmiExecuteUnambiguousOnPressed.setSelected(config.isExecuteUnambiguousOnKeyPressed());
 	}
 
 	protected void switchTrayIconUse() {
@@ -957,6 +1242,32 @@ public class MainBackEndHolder {
 		keysManager.haltAllTasks();
 	}
 
+	protected void showActivationLatency() {
+		ActivationLatencies latencies = ActivationLatencies.getInstance();
+		StringBuilder message = new StringBuilder("All tasks:\n");
+		for (int stage = ActivationLatencies.STAGE_MATCH; stage <= ActivationLatencies.STAGE_TOTAL; stage++) {
+			message.append(ActivationLatencies.getStageName(stage)).append(": ").append(latencies.getGlobal(stage)).append("\n");
+		}
+
+		for (TaskGroup group : taskGroups) {
+			for (UserDefinedAction task : group.getTasks()) {
+				LatencyHistogram total = latencies.getTask(task, ActivationLatencies.STAGE_TOTAL);
+				if (total.getCount() > 0) {
+					message.append("\n").append(task.getName()).append(": ").append(total);
+				}
+			}
+		}
+
+		message.append("\n\nKey events dropped: ").append(keysManager.getDispatchQueue().getDroppedCount());
+		message.append("\nKey events late: ").append(keysManager.getDispatchQueue().getLateCount());
+
+		TaskExecutionEngine engine = keysManager.getExecutionEngine();
+		message.append("\n\nTasks running: ").append(engine.getRunningCount());
+		message.append("\nTask executions waiting: ").append(engine.getQueuedCount());
+		message.append("\nTask triggers dropped: ").append(engine.getDroppedCount());
+		JOptionPane.showMessageDialog(main, message.toString(), "Activation latency", JOptionPane.INFORMATION_MESSAGE);
+	}
+
 	protected void switchHaltByKey() {
 		config.setEnabledHaltingKeyPressed(main.cbmiHaltByKey.isSelected());
 	}
@@ -965,6 +1276,10 @@ public class MainBackEndHolder {
 		config.setExecuteOnKeyReleased(main.cbmiExecuteOnReleased.isSelected());
 	}
 
+	protected void switchExecuteUnambiguousOnPressed() {
+		config.setExecuteUnambiguousOnKeyPressed(main.cbmiExecuteUnambiguousOnPressed.isSelected());
+	}
+
 	/*************************************************************************************************************/
 	private void setEnableRecord(boolean state) {
 		main.bRecord.setEnabled(state);
@@ -68,6 +68,7 @@ public class MainFrame extends JFrame {
 	protected static final int TTASK_COLUMN_ENABLED = 2;
 	protected static final int TTASK_COLUMN_USE_COUNT = 3;
 	protected static final int TTASK_COLUMN_LAST_USE = 4;
+	protected static final int TTASK_COLUMN_EXECUTION_POLICY = 5;
 
 	protected final MainBackEndHolder backEnd;
 
@@ -86,7 +87,7 @@ public class MainFrame extends JFrame {
 	protected JTextArea taSource, taStatus;
 	protected JRadioButtonMenuItem rbmiCompileJava, rbmiCompilePython, rbmiCompileCS, rbmiCompileScala;
 	protected JRadioButtonMenuItem rbmiDebugSevere, rbmiDebugWarning, rbmiDebugInfo, rbmiDebugFine;
-	protected JCheckBoxMenuItem cbmiUseTrayIcon, cbmiHaltByKey, cbmiExecuteOnReleased;
+	protected JCheckBoxMenuItem cbmiUseTrayIcon, cbmiHaltByKey, cbmiExecuteOnReleased, cbmiExecuteUnambiguousOnPressed;
 	protected final JTextField tfMousePosition;
 	protected final JTable tTasks;
 
@@ -253,6 +254,27 @@ public class MainFrame extends JFrame {
 		mnNewMenu.add(miSaveSource);
 		mnNewMenu.add(miCleanSource);
 
+		JMenuItem miSaveRecording = new JMenuItem("Save recording...");
+		miSaveRecording.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				backEnd.promptSaveRecording();
+			}
+		});
+
+		JMenuItem miLoadRecording = new JMenuItem("Load recording...");
+		miLoadRecording.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				backEnd.promptLoadRecording();
+			}
+		});
+
+		JSeparator separator_3 = new JSeparator();
+		mnNewMenu.add(separator_3);
+		mnNewMenu.add(miSaveRecording);
+		mnNewMenu.add(miLoadRecording);
+
 		JMenuItem mntmNewMenuItem_4 = new JMenuItem("Import...");
 		mntmNewMenuItem_4.addActionListener(new ActionListener() {
 			@Override
@@ -311,8 +333,44 @@ public class MainFrame extends JFrame {
 			}
 		});
 		mnNewMenu_2.add(miHaltAllTasks);
+
+		JMenuItem miActivationLatency = new JMenuItem("Activation latency...");
+		miActivationLatency.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				backEnd.showActivationLatency();
+			}
+		});
+		mnNewMenu_2.add(miActivationLatency);
 		mnNewMenu_2.add(mntmNewMenuItem);
 
+		JMenuItem miReplayProfile = new JMenuItem("Replay profile...");
+		miReplayProfile.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				backEnd.promptReplayProfile();
+			}
+		});
+		mnNewMenu_2.add(miReplayProfile);
+
+		JMenuItem miReplayRange = new JMenuItem("Replay range...");
+		miReplayRange.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				backEnd.promptReplayRange();
+			}
+		});
+		mnNewMenu_2.add(miReplayRange);
+
+		JMenuItem miReplayFrom = new JMenuItem("Replay from event...");
+		miReplayFrom.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				backEnd.promptReplayFrom();
+			}
+		});
+		mnNewMenu_2.add(miReplayFrom);
+
 		JMenuItem mntmNewMenuItem_3 = new JMenuItem("Native modules...");
 		mntmNewMenuItem_3.addActionListener(new ActionListener() {
 			@Override
@@ -434,6 +492,15 @@ public class MainFrame extends JFrame {
 		final JCheckBoxMenuItem chckbxmntmNewCheckItem = new JCheckBoxMenuItem("Record Mouse Click Only");
 		mSetting.add(chckbxmntmNewCheckItem);
 
+		JMenuItem miRecordingFilters = new JMenuItem("Recording filters...");
+		miRecordingFilters.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				backEnd.promptRecordingFilters();
+			}
+		});
+		mSetting.add(miRecordingFilters);
+
 		cbmiHaltByKey = new JCheckBoxMenuItem("Halt task by ESC");
 		cbmiHaltByKey.addActionListener(new ActionListener() {
 			@Override
@@ -452,6 +519,15 @@ public class MainFrame extends JFrame {
 		});
 		mSetting.add(cbmiExecuteOnReleased);
 
+		cbmiExecuteUnambiguousOnPressed = new JCheckBoxMenuItem("Execute unambiguous key chains on pressed");
+		cbmiExecuteUnambiguousOnPressed.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				backEnd.switchExecuteUnambiguousOnPressed();
+			}
+		});
+		mSetting.add(cbmiExecuteUnambiguousOnPressed);
+
 		JSeparator separator = new JSeparator();
 		mSetting.add(separator);
 
@@ -853,7 +929,7 @@ public class MainFrame extends JFrame {
 			new Object[][] {
 			},
 			new String[] {
-				"Name", "Activation", "Enabled", "Use count", "Last used"
+				"Name", "Activation", "Enabled", "Use count", "Last used", "On retrigger"
 			}
 		){
 			@Override
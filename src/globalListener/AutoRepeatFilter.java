@@ -0,0 +1,70 @@
+package globalListener;
+
+/**
+ * Filters the repeated key presses generated by the operating system while a key is held down.
+ *
+ * The state of each key is kept in a primitive array indexed by native key code, so filtering neither allocates nor
+ * boxes. Key codes outside of the array are never considered repeated. This is only accessed from the native hook
+ * thread, except for the mode.
+ */
+public class AutoRepeatFilter {
+
+	/**
+	 * Drop repeated presses while a key is held down.
+	 */
+	public static final int MODE_SUPPRESS = 0;
+	/**
+	 * Deliver repeated presses like any other press.
+	 */
+	public static final int MODE_PASS_THROUGH = 1;
+
+	private static final int KEY_CODE_COUNT = 1 << 16;
+
+	private final boolean[] pressed;
+	private volatile int mode;
+
+	AutoRepeatFilter() {
+		pressed = new boolean[KEY_CODE_COUNT];
+		mode = MODE_SUPPRESS;
+	}
+
+	/**
+	 * @param mode one of the MODE_* constants.
+	 */
+	void setMode(int mode) {
+		this.mode = mode;
+	}
+
+	int getMode() {
+		return mode;
+	}
+
+	/**
+	 * Record a key press.
+	 *
+	 * @param code native key code.
+	 * @return whether the press should be delivered.
+	 */
+	boolean pressed(int code) {
+		if (code < 0 || code >= KEY_CODE_COUNT) {
+			return true;
+		}
+
+		if (!pressed[code]) {
+			pressed[code] = true;
+			return true;
+		}
+		return mode == MODE_PASS_THROUGH;
+	}
+
+	/**
+	 * Record a key release.
+	 *
+	 * @param code native key code.
+	 */
+	void released(int code) {
+		if (code >= 0 && code < KEY_CODE_COUNT) {
+			pressed[code] = false;
+		}
+	}
+}
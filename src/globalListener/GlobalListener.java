@@ -1,7 +0,0 @@
-package globalListener;
-
-public interface GlobalListener {
-	public boolean startListening();
-
-	public boolean stopListening();
-}
@@ -0,0 +1,53 @@
+package globalListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts the millisecond timestamps of native events ({@code getWhen()}) to the {@link System#nanoTime()} scale.
+ *
+ * The native clock is anchored to the event received with the least delay so far, so the converted time is
+ * when the event happened rather than when it reached the listener. Converted times never go backwards and are
+ * never later than the time the event was received. The clock is anchored again whenever the native time jumps.
+ * This is only accessed from the native hook thread.
+ */
+class NativeEventClock {
+
+	private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+	/**
+	 * Re-anchor if an event seems to have waited longer than this, since the two clocks have then drifted apart
+	 * (or the native clock was reset).
+	 */
+	private static final long MAX_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private boolean anchored;
+	private long anchorWhen;
+	private long anchorNanos;
+	private long last;
+
+	/**
+	 * @param when timestamp of the native event in milliseconds.
+	 * @param receivedNanos {@link System#nanoTime()} when the event was received.
+	 * @return the time of the event on the {@link System#nanoTime()} scale.
+	 */
+	long toNanoTime(long when, long receivedNanos) {
+		if (!anchored) {
+			last = receivedNanos;
+		}
+
+		long nanos = anchorNanos + (when - anchorWhen) * NANOS_PER_MILLI;
+		if (when <= 0) { // Not provided by the platform.
+			nanos = receivedNanos;
+		} else if (!anchored || nanos > receivedNanos || nanos - last < 0 || receivedNanos - nanos > MAX_DELAY_NANOS) {
+			anchored = true;
+			anchorWhen = when;
+			anchorNanos = receivedNanos;
+			nanos = receivedNanos;
+		}
+
+		if (nanos - last < 0) {
+			nanos = last;
+		}
+		last = nanos;
+		return nanos;
+	}
+}
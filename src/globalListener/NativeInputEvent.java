@@ -0,0 +1,108 @@
+package globalListener;
+
+import core.keyChain.KeyStroke;
+
+/**
+ * A native keyboard or mouse event, decoded once by the {@link NativeInputEventBus} for all subscribers.
+ *
+ * The bus reuses the same instance for every event, so subscribers must copy what they need
+ * before returning and must not keep a reference to the event.
+ */
+public final class NativeInputEvent {
+
+	public static final int KEY_PRESSED = 1;
+	public static final int KEY_RELEASED = 1 << 1;
+	public static final int MOUSE_PRESSED = 1 << 2;
+	public static final int MOUSE_RELEASED = 1 << 3;
+	public static final int MOUSE_MOVED = 1 << 4;
+
+	public static final int ALL_KEY = KEY_PRESSED | KEY_RELEASED;
+	public static final int ALL_MOUSE = MOUSE_PRESSED | MOUSE_RELEASED | MOUSE_MOVED;
+	public static final int ALL = ALL_KEY | ALL_MOUSE;
+
+	private int type;
+	private long time;
+	private int nativeKeyCode;
+	private int key;
+	private KeyStroke.Modifier modifier;
+	private int button;
+	private int x;
+	private int y;
+
+	NativeInputEvent() {
+		modifier = KeyStroke.Modifier.KEY_MODIFIER_UNKNOWN;
+	}
+
+	void setKey(int type, long time, int nativeKeyCode, KeyStroke stroke) {
+		this.type = type;
+		this.time = time;
+		this.nativeKeyCode = nativeKeyCode;
+		this.key = stroke.getKey();
+		this.modifier = stroke.getModifier();
+	}
+
+	void setMouse(int type, long time, int button, int x, int y) {
+		this.type = type;
+		this.time = time;
+		this.button = button;
+		this.x = x;
+		this.y = y;
+	}
+
+	/**
+	 * @return one of the event type constants of this class.
+	 */
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * @return when the native event happened, on the {@link System#nanoTime()} scale.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return the native key code of a key event.
+	 */
+	public int getNativeKeyCode() {
+		return nativeKeyCode;
+	}
+
+	/**
+	 * @return the Java key code of a key event, as in {@link java.awt.event.KeyEvent}.
+	 */
+	public int getKey() {
+		return key;
+	}
+
+	/**
+	 * @return the modifier (left or right) of the key of a key event.
+	 */
+	public KeyStroke.Modifier getModifier() {
+		return modifier;
+	}
+
+	/**
+	 * @return the Java button mask of a mouse press or release event, as in {@link java.awt.event.InputEvent}.
+	 */
+	public int getButton() {
+		return button;
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * @return a new key stroke for a key event.
+	 */
+	public KeyStroke toKeyStroke() {
+		return KeyStroke.of(key, modifier, type == KEY_PRESSED, time);
+	}
+}
@@ -0,0 +1,273 @@
+package globalListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jnativehook.GlobalScreen;
+import org.jnativehook.keyboard.NativeKeyEvent;
+import org.jnativehook.keyboard.NativeKeyListener;
+import org.jnativehook.mouse.NativeMouseEvent;
+import org.jnativehook.mouse.NativeMouseInputListener;
+
+import utilities.Function;
+import utilities.NativeHookCodeConverter;
+
+/**
+ * Single listener of the native hook, shared by all components interested in keyboard or mouse events.
+ *
+ * Each native event is decoded once into a {@link NativeInputEvent}, which is then passed to the subscribers of its
+ * type in decreasing order of priority. Subscribers are called on the native hook thread, so they must return quickly.
+ * Events are timestamped from the native event time, on the {@link System#nanoTime()} scale (see {@link NativeEventClock}).
+ *
+ * The bus only listens to the groups of native events (keys, mouse buttons, mouse motion) that have subscribers.
+ */
+public final class NativeInputEventBus implements NativeKeyListener, NativeMouseInputListener {
+
+	private static final Logger LOGGER = Logger.getLogger(NativeInputEventBus.class.getName());
+
+	public static final int PRIORITY_HIGH = 100;
+	public static final int PRIORITY_NORMAL = 0;
+	public static final int PRIORITY_LOW = -100;
+
+	private static final int TYPE_COUNT = Integer.bitCount(NativeInputEvent.ALL);
+	private static final int MOUSE_BUTTONS = NativeInputEvent.MOUSE_PRESSED | NativeInputEvent.MOUSE_RELEASED;
+
+	private static final NativeInputEventBus INSTANCE = new NativeInputEventBus();
+
+	private final List<Subscriber> subscribers; // Guarded by this.
+	private int listenedTypes; // Guarded by this.
+	/**
+	 * Subscribers of each event type, indexed by the bit of the type. Replaced as a whole whenever subscribers change.
+	 */
+	private volatile Subscriber[][] byType;
+
+	// Only accessed from the native hook thread.
+	private final NativeInputEvent event;
+	private final NativeEventClock clock;
+	private final AutoRepeatFilter autoRepeatFilter;
+
+	private NativeInputEventBus() {
+		subscribers = new ArrayList<>();
+		byType = new Subscriber[TYPE_COUNT][0];
+		event = new NativeInputEvent();
+		clock = new NativeEventClock();
+		autoRepeatFilter = new AutoRepeatFilter();
+	}
+
+	public static NativeInputEventBus getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Subscribe to native events. Subscribing the same function again replaces its previous subscription.
+	 *
+	 * @param subscriber called with each event of the given types. Returning false logs a warning.
+	 * @param eventTypes bitwise or of the event type constants in {@link NativeInputEvent}.
+	 * @param priority subscribers with higher priority are called first.
+	 * Subscribers with the same priority are called in subscription order.
+	 */
+	public synchronized void subscribe(Function<NativeInputEvent, Boolean> subscriber, int eventTypes, int priority) {
+		removeSubscriber(subscriber);
+		subscribers.add(new Subscriber(subscriber, eventTypes, priority));
+		update();
+	}
+
+	/**
+	 * Stop sending events to a subscriber. This does nothing if the function is not subscribed.
+	 */
+	public synchronized void unsubscribe(Function<NativeInputEvent, Boolean> subscriber) {
+		if (removeSubscriber(subscriber)) {
+			update();
+		}
+	}
+
+	@Override
+	public void nativeKeyPressed(NativeKeyEvent e) {
+		int code = e.getKeyCode();
+		long time = clock.toNanoTime(e.getWhen(), System.nanoTime());
+		if (!autoRepeatFilter.pressed(code)) {
+			return;
+		}
+
+		Subscriber[] toNotify = byType[indexOf(NativeInputEvent.KEY_PRESSED)];
+		if (toNotify.length == 0) {
+			return;
+		}
+		event.setKey(NativeInputEvent.KEY_PRESSED, time, code, NativeHookCodeConverter.getKeyEventCode(code));
+		publish(toNotify);
+	}
+
+	@Override
+	public void nativeKeyReleased(NativeKeyEvent e) {
+		int code = e.getKeyCode();
+		long time = clock.toNanoTime(e.getWhen(), System.nanoTime());
+		autoRepeatFilter.released(code);
+
+		Subscriber[] toNotify = byType[indexOf(NativeInputEvent.KEY_RELEASED)];
+		if (toNotify.length == 0) {
+			return;
+		}
+		event.setKey(NativeInputEvent.KEY_RELEASED, time, code, NativeHookCodeConverter.getKeyEventCode(code));
+		publish(toNotify);
+	}
+
+	/**
+	 * Set how repeated key presses are delivered while a key is held down.
+	 *
+	 * @param mode one of the MODE_* constants in {@link AutoRepeatFilter}.
+	 */
+	public void setAutoRepeatMode(int mode) {
+		if (mode != AutoRepeatFilter.MODE_SUPPRESS && mode != AutoRepeatFilter.MODE_PASS_THROUGH) {
+			LOGGER.warning("Unknown auto repeat mode " + mode + ".");
+			return;
+		}
+		autoRepeatFilter.setMode(mode);
+	}
+
+	@Override
+	public void nativeKeyTyped(NativeKeyEvent e) {
+	}
+
+	@Override
+	public void nativeMousePressed(NativeMouseEvent e) {
+		Subscriber[] toNotify = byType[indexOf(NativeInputEvent.MOUSE_PRESSED)];
+		if (toNotify.length == 0) {
+			return;
+		}
+		int button = NativeHookCodeConverter.getMouseButtonCode(e.getModifiers(), true);
+		event.setMouse(NativeInputEvent.MOUSE_PRESSED, clock.toNanoTime(e.getWhen(), System.nanoTime()), button, e.getX(), e.getY());
+		publish(toNotify);
+	}
+
+	@Override
+	public void nativeMouseReleased(NativeMouseEvent e) {
+		Subscriber[] toNotify = byType[indexOf(NativeInputEvent.MOUSE_RELEASED)];
+		if (toNotify.length == 0) {
+			return;
+		}
+		int button = NativeHookCodeConverter.getMouseButtonCode(e.getButton(), false);
+		event.setMouse(NativeInputEvent.MOUSE_RELEASED, clock.toNanoTime(e.getWhen(), System.nanoTime()), button, e.getX(), e.getY());
+		publish(toNotify);
+	}
+
+	@Override
+	public void nativeMouseMoved(NativeMouseEvent e) {
+		Subscriber[] toNotify = byType[indexOf(NativeInputEvent.MOUSE_MOVED)];
+		if (toNotify.length == 0) {
+			return;
+		}
+		event.setMouse(NativeInputEvent.MOUSE_MOVED, clock.toNanoTime(e.getWhen(), System.nanoTime()), 0, e.getX(), e.getY());
+		publish(toNotify);
+	}
+
+	@Override
+	public void nativeMouseClicked(NativeMouseEvent e) {
+	}
+
+	@Override
+	public void nativeMouseDragged(NativeMouseEvent e) {
+	}
+
+	private void publish(Subscriber[] toNotify) {
+		for (Subscriber subscriber : toNotify) {
+			try {
+				if (!subscriber.function.apply(event)) {
+					LOGGER.warning("Native input event callback failed for event type " + event.getType());
+				}
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.WARNING, "Exception in native input event callback", e);
+			}
+		}
+	}
+
+	private boolean removeSubscriber(Function<NativeInputEvent, Boolean> function) {
+		for (int i = 0; i < subscribers.size(); i++) {
+			if (subscribers.get(i).function == function) {
+				subscribers.remove(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Rebuild the subscribers of each type and listen to the native events that have subscribers.
+	 * Must be called with the lock held.
+	 */
+	private void update() {
+		List<Subscriber> sorted = new ArrayList<>(subscribers);
+		Collections.sort(sorted, new Comparator<Subscriber>() { // Stable, so ties keep subscription order.
+			@Override
+			public int compare(Subscriber a, Subscriber b) {
+				return Integer.compare(b.priority, a.priority);
+			}
+		});
+
+		Subscriber[][] newByType = new Subscriber[TYPE_COUNT][];
+		int types = 0;
+		for (int index = 0; index < TYPE_COUNT; index++) {
+			List<Subscriber> forType = new ArrayList<>();
+			for (Subscriber subscriber : sorted) {
+				if ((subscriber.eventTypes & (1 << index)) != 0) {
+					forType.add(subscriber);
+				}
+			}
+			newByType[index] = forType.toArray(new Subscriber[forType.size()]);
+			types |= forType.isEmpty() ? 0 : 1 << index;
+		}
+		byType = newByType;
+
+		updateNativeListeners(types);
+	}
+
+	private void updateNativeListeners(int types) {
+		boolean keys = (types & NativeInputEvent.ALL_KEY) != 0;
+		if (keys != ((listenedTypes & NativeInputEvent.ALL_KEY) != 0)) {
+			if (keys) {
+				GlobalScreen.addNativeKeyListener(this);
+			} else {
+				GlobalScreen.removeNativeKeyListener(this);
+			}
+		}
+
+		boolean buttons = (types & MOUSE_BUTTONS) != 0;
+		if (buttons != ((listenedTypes & MOUSE_BUTTONS) != 0)) {
+			if (buttons) {
+				GlobalScreen.addNativeMouseListener(this);
+			} else {
+				GlobalScreen.removeNativeMouseListener(this);
+			}
+		}
+
+		boolean motion = (types & NativeInputEvent.MOUSE_MOVED) != 0;
+		if (motion != ((listenedTypes & NativeInputEvent.MOUSE_MOVED) != 0)) {
+			if (motion) {
+				GlobalScreen.addNativeMouseMotionListener(this);
+			} else {
+				GlobalScreen.removeNativeMouseMotionListener(this);
+			}
+		}
+
+		listenedTypes = types;
+	}
+
+	private static int indexOf(int type) {
+		return Integer.numberOfTrailingZeros(type);
+	}
+
+	private static class Subscriber {
+		private final Function<NativeInputEvent, Boolean> function;
+		private final int eventTypes;
+		private final int priority;
+
+		private Subscriber(Function<NativeInputEvent, Boolean> function, int eventTypes, int priority) {
+			this.function = function;
+			this.eventTypes = eventTypes;
+			this.priority = priority;
+		}
+	}
+}
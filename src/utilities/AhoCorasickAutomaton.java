@@ -0,0 +1,185 @@
+package utilities;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton matching many patterns of integer symbols at once against a stream of symbols.
+ *
+ * The automaton is fully built ahead of time, so advancing it by one symbol is a single table lookup and does not
+ * depend on the number of patterns. The current state of the stream is an int kept by the caller, starting from
+ * {@link #START_STATE}. The values of all patterns that end at the current position of the stream are available
+ * from {@link #getMatches(int)} without further work.
+ *
+ * Instances of this class are immutable. Use {@link #newBuilder()} to create one.
+ *
+ * @param <T> type of the values associated with the patterns.
+ */
+public class AhoCorasickAutomaton<T> {
+
+	public static final int START_STATE = 0;
+
+	private final int[] alphabet; // Sorted distinct symbols appearing in the patterns.
+	private final int[] transitions; // transitions[state * alphabet.length + symbolIndex].
+	private final List<List<T>> matches;
+
+	private AhoCorasickAutomaton(Builder<T> builder) {
+		// Build the trie.
+		Map<Integer, Integer> symbolIndices = new HashMap<>();
+		for (int[] pattern : builder.patterns) {
+			for (int symbol : pattern) {
+				symbolIndices.put(symbol, 0);
+			}
+		}
+		alphabet = new int[symbolIndices.size()];
+		int i = 0;
+		for (int symbol : symbolIndices.keySet()) {
+			alphabet[i++] = symbol;
+		}
+		Arrays.sort(alphabet);
+
+		int width = Math.max(alphabet.length, 1);
+		int maxStates = 1;
+		for (int[] pattern : builder.patterns) {
+			maxStates += pattern.length;
+		}
+		int[] trie = new int[maxStates * width];
+		Arrays.fill(trie, -1);
+		List<List<T>> ownMatches = new ArrayList<>();
+		ownMatches.add(new ArrayList<T>());
+
+		int stateCount = 1;
+		for (int p = 0; p < builder.patterns.size(); p++) {
+			int state = START_STATE;
+			for (int symbol : builder.patterns.get(p)) {
+				int index = state * width + Arrays.binarySearch(alphabet, symbol);
+				if (trie[index] == -1) {
+					trie[index] = stateCount++;
+					ownMatches.add(new ArrayList<T>());
+				}
+				state = trie[index];
+			}
+			ownMatches.get(state).add(builder.values.get(p));
+		}
+
+		// Breadth first traversal to fill in failure transitions and inherit matches of the failure states.
+		transitions = Arrays.copyOf(trie, stateCount * width);
+		int[] failures = new int[stateCount];
+		List<List<T>> allMatches = new ArrayList<>(Collections.nCopies(stateCount, Collections.<T>emptyList()));
+		allMatches.set(START_STATE, unmodifiable(ownMatches.get(START_STATE)));
+
+		Queue<Integer> queue = new ArrayDeque<>();
+		for (int s = 0; s < alphabet.length; s++) {
+			int child = transitions[START_STATE * width + s];
+			if (child == -1) {
+				transitions[START_STATE * width + s] = START_STATE;
+			} else {
+				failures[child] = START_STATE;
+				queue.add(child);
+			}
+		}
+
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+
+			List<T> stateMatches = ownMatches.get(state);
+			List<T> inherited = allMatches.get(failures[state]);
+			if (stateMatches.isEmpty()) {
+				allMatches.set(state, inherited);
+			} else {
+				stateMatches.addAll(inherited);
+				allMatches.set(state, unmodifiable(stateMatches));
+			}
+
+			for (int s = 0; s < alphabet.length; s++) {
+				int index = state * width + s;
+				int child = transitions[index];
+				int fallback = transitions[failures[state] * width + s];
+				if (child == -1) {
+					transitions[index] = fallback;
+				} else {
+					failures[child] = fallback;
+					queue.add(child);
+				}
+			}
+		}
+
+		matches = allMatches;
+	}
+
+	/**
+	 * Advance the automaton by one symbol.
+	 *
+	 * @param state current state.
+	 * @param symbol next symbol of the stream.
+	 * @return the state after the symbol.
+	 */
+	public int next(int state, int symbol) {
+		int index = Arrays.binarySearch(alphabet, symbol);
+		if (index < 0) {
+			return START_STATE; // No pattern contains this symbol.
+		}
+		return transitions[state * alphabet.length + index];
+	}
+
+	/**
+	 * @param state a state of this automaton.
+	 * @return values of all patterns ending at this state, including those that are suffixes of longer patterns.
+	 * The returned list must not be modified.
+	 */
+	public List<T> getMatches(int state) {
+		return matches.get(state);
+	}
+
+	/**
+	 * @return number of states of this automaton.
+	 */
+	public int getStateCount() {
+		return matches.size();
+	}
+
+	private static <T> List<T> unmodifiable(List<T> list) {
+		return list.isEmpty() ? Collections.<T>emptyList() : Collections.unmodifiableList(list);
+	}
+
+	public static <T> Builder<T> newBuilder() {
+		return new Builder<T>();
+	}
+
+	/**
+	 * Builder for enclosing class.
+	 */
+	public static class Builder<T> {
+		private final List<int[]> patterns;
+		private final List<T> values;
+
+		private Builder() {
+			patterns = new ArrayList<>();
+			values = new ArrayList<>();
+		}
+
+		/**
+		 * Add a pattern. Empty patterns are ignored.
+		 *
+		 * @param pattern symbols of the pattern.
+		 * @param value value reported when the pattern is matched.
+		 */
+		public Builder<T> addPattern(int[] pattern, T value) {
+			if (pattern.length > 0) {
+				patterns.add(pattern.clone());
+				values.add(value);
+			}
+			return this;
+		}
+
+		public AhoCorasickAutomaton<T> build() {
+			return new AhoCorasickAutomaton<T>(this);
+		}
+	}
+}
@@ -2,6 +2,7 @@ package utilities;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
 import java.util.Calendar;
 import java.util.Date;
 
@@ -10,6 +11,16 @@ public class DateUtility {
 	private static final SimpleDateFormat TIME_FORMAT = new SimpleDateFormat("dd/MM/yyyy H:m:s");
 	private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd/MM/yyyy");
 
+	/**
+	 * Convert a time on the {@link System#nanoTime()} scale to wall clock time.
+	 * The result shifts if the wall clock is adjusted, so this is only meant for display.
+	 * @param nanoTime time to convert
+	 * @return the according wall clock time
+	 */
+	public static LocalDateTime nanoTimeToLocalDateTime(long nanoTime) {
+		return LocalDateTime.now().minusNanos(System.nanoTime() - nanoTime);
+	}
+
 	public static String calendarToTimeString(Calendar calendar) {
 		if (calendar == null) {
 			return null;
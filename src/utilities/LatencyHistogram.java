@@ -0,0 +1,138 @@
+package utilities;
+
+/**
+ * Histogram of latencies in nanoseconds, bucketed by powers of two.
+ * Recording a value takes constant time and does not allocate.
+ */
+public class LatencyHistogram {
+
+	private static final int BUCKET_COUNT = 64;
+
+	private final long[] buckets;
+	private long count;
+	private long total;
+	private long min;
+	private long max;
+
+	public LatencyHistogram() {
+		buckets = new long[BUCKET_COUNT];
+		reset();
+	}
+
+	/**
+	 * Record a latency. Negative values are counted as zero.
+	 *
+	 * @param nanos latency in nanoseconds.
+	 */
+	public synchronized void record(long nanos) {
+		nanos = Math.max(nanos, 0);
+		buckets[bucketOf(nanos)]++;
+		count++;
+		total += nanos;
+		min = Math.min(min, nanos);
+		max = Math.max(max, nanos);
+	}
+
+	/**
+	 * Remove all recorded values.
+	 */
+	public synchronized void reset() {
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = 0;
+		}
+		count = 0;
+		total = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return minimum recorded latency in nanoseconds, or 0 if nothing was recorded.
+	 */
+	public synchronized long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * @return maximum recorded latency in nanoseconds.
+	 */
+	public synchronized long getMax() {
+		return max;
+	}
+
+	/**
+	 * @return average recorded latency in nanoseconds, or 0 if nothing was recorded.
+	 */
+	public synchronized double getMean() {
+		return count == 0 ? 0 : (double) total / count;
+	}
+
+	/**
+	 * Estimate a percentile of the recorded latencies. The result is the upper bound of the bucket
+	 * containing the percentile, capped at the maximum recorded value.
+	 *
+	 * @param percentile percentile between 0 and 100.
+	 * @return the estimated latency in nanoseconds, or 0 if nothing was recorded.
+	 */
+	public synchronized long getPercentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+
+		long rank = (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100);
+		rank = Math.max(rank, 1);
+		long seen = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			seen += buckets[i];
+			if (seen >= rank) {
+				return Math.min(bucketUpperBound(i), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Add all recorded values of another histogram to this histogram.
+	 *
+	 * @param other histogram to merge from.
+	 */
+	public void merge(LatencyHistogram other) {
+		long[] otherBuckets;
+		long otherCount, otherTotal, otherMin, otherMax;
+		synchronized (other) {
+			otherBuckets = other.buckets.clone();
+			otherCount = other.count;
+			otherTotal = other.total;
+			otherMin = other.min;
+			otherMax = other.max;
+		}
+
+		synchronized (this) {
+			for (int i = 0; i < buckets.length; i++) {
+				buckets[i] += otherBuckets[i];
+			}
+			count += otherCount;
+			total += otherTotal;
+			min = Math.min(min, otherMin);
+			max = Math.max(max, otherMax);
+		}
+	}
+
+	private static int bucketOf(long nanos) {
+		return nanos == 0 ? 0 : BUCKET_COUNT - Long.numberOfLeadingZeros(nanos) - 1;
+	}
+
+	private static long bucketUpperBound(int bucket) {
+		return bucket >= BUCKET_COUNT - 2 ? Long.MAX_VALUE : (1L << (bucket + 1)) - 1;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("count=%d, mean=%.1fus, p50<=%.1fus, p99<=%.1fus, max=%.1fus",
+				count, getMean() / 1000, getPercentile(50) / 1000d, getPercentile(99) / 1000d, getMax() / 1000d);
+	}
+}